@@ -0,0 +1,392 @@
+package hashedDictionary;
+
+import hashedDictionary.HashChains.Node;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe hashed dictionary that resolves collisions with separate chaining, whose lookups
+ * take no locks.
+ * Chain nodes are immutable. A writer builds the new chain of a bucket, sharing the part after
+ * the node it changes, and installs it with a compare-and-set of the bucket head; if another writer
+ * got there first, it starts over. Readers make one volatile read of the bucket head and walk a
+ * chain that can no longer change. Rebuilding a long chain is costly, so writers take the bucket's
+ * lock (one of a fixed set of locks, shared by every bucket with the same low index bits) before
+ * rebuilding one instead of repeating the work when they collide.
+ *
+ * Linearizability: every single-key operation takes effect at one instant. add and remove take
+ * effect at their successful compare-and-set; getValue, contains, and a remove that finds no entry
+ * take effect at their read of the bucket head. getSize() and isEmpty() sum a LongAdder that is
+ * updated just after each compare-and-set, so they are exact only when no operation is in progress.
+ * clear() empties the buckets one at a time and is not atomic as a whole.
+ *
+ * The table is doubled without stopping other threads. The old buckets are moved in chunks that
+ * threads claim from a shared counter: the writer that starts the resize, and every writer that
+ * reaches a bucket already moved, moves chunks until none are left to claim. Each moved bucket is
+ * replaced by a forwarding node that sends later readers and writers to the new table, and the
+ * thread that moves the last bucket makes the new table current. Readers never help; they only
+ * follow forwarding nodes.
+ *
+ * The iterators are weakly consistent: each bucket is read when the iterator reaches it, so
+ * entries added or removed during the iteration may or may not be seen.
+ *
+ * @param <K> Object type of the search key
+ * @param <V> Object type of the value associated with the key.
+ */
+public class ConcurrentHashedDictionary<K, V> implements DictionaryInterface<K, V> {
+
+	// the dictionary
+	private final LongAdder numberOfEntries = new LongAdder();
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+	private static final int MAX_CONCURRENCY_LEVEL = 1 << 16;
+
+	// the hash table
+	private volatile Table<K, V> hashTable;
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+	private static final int LONG_CHAIN = 8;					// chain length at which writers take the bucket's lock
+	private static final int MIN_TRANSFER_STRIDE = 16;			// fewest buckets a thread claims to move at a time
+	private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+	// the locks
+	private final ReentrantLock[] binLocks;						// bucket i is locked with binLocks[i & (binLocks.length - 1)]
+
+	public ConcurrentHashedDictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ConcurrentHashedDictionary(int initialCapacity) {
+		this(initialCapacity, DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	/**
+	 * Creates an empty dictionary.
+	 * @param initialCapacity The number of entries the dictionary can hold before its table grows.
+	 * @param concurrencyLevel The number of threads expected to change the dictionary at the same time.
+	 *                         It is rounded up to a power of 2 to give the number of bucket locks.
+	 */
+	public ConcurrentHashedDictionary(int initialCapacity, int concurrencyLevel) {
+		initialCapacity = checkCapacity(initialCapacity);
+		if(concurrencyLevel <= 0 || concurrencyLevel > MAX_CONCURRENCY_LEVEL)
+			throw new IllegalArgumentException();
+		binLocks = new ReentrantLock[getPowerOfTwoFor(concurrencyLevel)];
+		for(int i = 0; i < binLocks.length; i++)
+			binLocks[i] = new ReentrantLock();
+		hashTable = new Table<>(getPowerOfTwoFor((int) Math.ceil(initialCapacity / MAX_LOAD_FACTOR)));
+	}
+
+	@Override
+	public V add(K key, V value) {
+		if(key == null || value == null)
+			throw new IllegalArgumentException();
+		int hash = HashChains.hash(key);
+		Table<K, V> table = hashTable;
+		while(true) {
+			int index = hash & (table.length() - 1);
+			Node<K, V> head = table.get(index);
+			if(head instanceof ForwardingNode) {
+				helpTransfer(table);
+				table = ((ForwardingNode<K, V>) head).nextTable;
+				continue;
+			}
+			ReentrantLock lock = lockIfLong(head, index);
+			try {
+				if(lock != null)
+					head = table.get(index);	// reread now that no other long-chain writer can change it
+				if(head instanceof ForwardingNode)
+					continue;
+				Node<K, V> node = HashChains.findNode(head, hash, key);
+				if(node != null) {
+					// update the existing entry
+					if(table.compareAndSet(index, head, HashChains.replaceNode(head, node, new Node<>(key, value, hash, node.next))))
+						return node.value;
+				}
+				else if(table.compareAndSet(index, head, new Node<>(key, value, hash, head)))
+					break;
+			}
+			finally {
+				if(lock != null)
+					lock.unlock();
+			}
+		}
+		numberOfEntries.increment();
+		// ensure hash table is large enough for another addition
+		if(isHashTableTooFull(table))
+			enlargeHashTable(table);
+		return null;
+	}
+
+	@Override
+	public V remove(K key) {
+		if(key == null)
+			return null;
+		int hash = HashChains.hash(key);
+		Table<K, V> table = hashTable;
+		while(true) {
+			int index = hash & (table.length() - 1);
+			Node<K, V> head = table.get(index);
+			if(head instanceof ForwardingNode) {
+				helpTransfer(table);
+				table = ((ForwardingNode<K, V>) head).nextTable;
+				continue;
+			}
+			ReentrantLock lock = lockIfLong(head, index);
+			try {
+				if(lock != null)
+					head = table.get(index);
+				if(head instanceof ForwardingNode)
+					continue;
+				Node<K, V> node = HashChains.findNode(head, hash, key);
+				if(node == null)
+					return null;
+				if(table.compareAndSet(index, head, HashChains.replaceNode(head, node, node.next))) {
+					numberOfEntries.decrement();
+					return node.value;
+				}
+			}
+			finally {
+				if(lock != null)
+					lock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public V getValue(K key) {
+		if(key == null)
+			return null;
+		int hash = HashChains.hash(key);
+		Table<K, V> table = hashTable;
+		while(true) {
+			Node<K, V> head = table.get(hash & (table.length() - 1));
+			if(head instanceof ForwardingNode)
+				table = ((ForwardingNode<K, V>) head).nextTable;
+			else {
+				Node<K, V> node = HashChains.findNode(head, hash, key);
+				return node == null ? null : node.value;
+			}
+		}
+	}
+
+	@Override
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	@Override
+	public Iterator<K> getKeyIterator() {
+		return new BucketIterator<>(true);
+	}
+
+	@Override
+	public Iterator<V> getValueIterator() {
+		return new BucketIterator<>(false);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return numberOfEntries.sum() <= 0;
+	}
+
+	@Override
+	public int getSize() {
+		return (int) Math.max(0, Math.min(numberOfEntries.sum(), Integer.MAX_VALUE));
+	}
+
+	@Override
+	public void clear() {
+		Table<K, V> table = hashTable;
+		for(int i = 0; i < table.length(); i++)
+			clearBucket(table, i);
+	}
+
+	// empties a bucket, or the two buckets of the next table it has been moved to
+	private void clearBucket(Table<K, V> table, int index) {
+		while(true) {
+			Node<K, V> head = table.get(index);
+			if(head == null)
+				return;
+			if(head instanceof ForwardingNode) {
+				Table<K, V> nextTable = ((ForwardingNode<K, V>) head).nextTable;
+				clearBucket(nextTable, index);
+				clearBucket(nextTable, index + table.length());
+				return;
+			}
+			if(table.compareAndSet(index, head, null)) {
+				for(; head != null; head = head.next)
+					numberOfEntries.decrement();
+				return;
+			}
+		}
+	}
+
+	// takes the lock of a bucket whose chain is long, returning it, or returns null
+	private ReentrantLock lockIfLong(Node<K, V> head, int index) {
+		if(!HashChains.isChainAtLeast(head, LONG_CHAIN))
+			return null;
+		ReentrantLock lock = binLocks[index & (binLocks.length - 1)];
+		lock.lock();
+		return lock;
+	}
+
+	// starts doubling full if it is still the current table, then helps move it
+	private void enlargeHashTable(Table<K, V> full) {
+		if(full.forward.get() == null) {
+			// only the current table is doubled, so hashTable is published in order;
+			// at the largest table the chains get longer instead
+			if(full.length() == MAX_CAPACITY || hashTable != full)
+				return;
+			full.forward.compareAndSet(null, new ForwardingNode<>(new Table<>(full.length() * 2)));
+		}
+		helpTransfer(full);
+	}
+
+	// moves chunks of full's buckets until none are left to claim;
+	// the thread that moves the last bucket makes the next table current
+	private void helpTransfer(Table<K, V> full) {
+		ForwardingNode<K, V> forward = full.forward.get();
+		int length = full.length();
+		int stride = Math.max(MIN_TRANSFER_STRIDE, (length >>> 3) / NCPU);
+		while(full.nextBucket.get() < length) {
+			int start = full.nextBucket.getAndAdd(stride);
+			if(start >= length)
+				return;
+			int end = Math.min(start + stride, length);
+			for(int i = start; i < end; i++)
+				transferBucket(full, i, forward);
+			if(full.movedBuckets.addAndGet(end - start) == length) {
+				hashTable = forward.nextTable;
+				// writers may have filled the new table while it was being built
+				if(isHashTableTooFull(forward.nextTable))
+					enlargeHashTable(forward.nextTable);
+				return;
+			}
+		}
+	}
+
+	// copies old bucket index into buckets index and index + old length of the next table, then forwards it
+	private static <K, V> void transferBucket(Table<K, V> oldTable, int index, ForwardingNode<K, V> forward) {
+		Table<K, V> newTable = forward.nextTable;
+		int oldLength = oldTable.length();
+		while(true) {
+			Node<K, V> head = oldTable.get(index);
+			Node<K, V> low = null;
+			Node<K, V> high = null;
+			for(Node<K, V> node = head; node != null; node = node.next) {
+				if((node.hash & oldLength) == 0)
+					low = new Node<>(node.key, node.value, node.hash, low);
+				else
+					high = new Node<>(node.key, node.value, node.hash, high);
+			}
+			// no writer can reach these buckets before the old one is forwarded
+			newTable.set(index, low);
+			newTable.set(index + oldLength, high);
+			if(oldTable.compareAndSet(index, head, forward))
+				return;
+		}
+	}
+
+	private boolean isHashTableTooFull(Table<K, V> table) {
+		double loadFactor = (double)numberOfEntries.sum() / (double)table.length();
+		if(loadFactor > MAX_LOAD_FACTOR)
+			return true;
+		return false;
+	}
+
+	private static int getPowerOfTwoFor(int num) {
+		if(num <= 2)
+			return 2;
+		if(num >= MAX_CAPACITY)
+			return MAX_CAPACITY;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+	// a bucket array that is doubled at most once; forward is set when the doubling starts,
+	// and the threads moving the buckets claim them from nextBucket
+	private static class Table<K, V> extends AtomicReferenceArray<Node<K, V>> {
+		private static final long serialVersionUID = 1L;
+		private final AtomicReference<ForwardingNode<K, V>> forward = new AtomicReference<>();
+		private final AtomicInteger nextBucket = new AtomicInteger();	// first bucket not yet claimed
+		private final AtomicInteger movedBuckets = new AtomicInteger();	// buckets whose move is done
+
+		Table(int length) {
+			super(length);
+		}
+	}
+
+	// the head of a bucket that has been moved to nextTable
+	private static class ForwardingNode<K, V> extends Node<K, V> {
+		private final Table<K, V> nextTable;
+
+		ForwardingNode(Table<K, V> nextTable) {
+			super(null, null, 0, null);
+			this.nextTable = nextTable;
+		}
+	}
+
+	// copies the keys or values of one bucket at a time
+	private class BucketIterator<T> implements Iterator<T> {
+		private final boolean keys;
+		private final Table<K, V> table = hashTable;
+		private int nextBucket;
+		private final ArrayList<T> buffer = new ArrayList<>();
+		private int bufferIndex;
+
+		BucketIterator(boolean keys) {
+			this.keys = keys;
+			fillBuffer();
+		}
+
+		private void fillBuffer() {
+			buffer.clear();
+			bufferIndex = 0;
+			while(buffer.isEmpty() && nextBucket < table.length()) {
+				copyBucket(table, nextBucket);
+				nextBucket++;
+			}
+		}
+
+		// a moved bucket is found in two buckets of the next table
+		@SuppressWarnings("unchecked")
+		private void copyBucket(Table<K, V> bucketTable, int index) {
+			Node<K, V> head = bucketTable.get(index);
+			if(head instanceof ForwardingNode) {
+				Table<K, V> nextTable = ((ForwardingNode<K, V>) head).nextTable;
+				copyBucket(nextTable, index);
+				copyBucket(nextTable, index + bucketTable.length());
+				return;
+			}
+			for(Node<K, V> node = head; node != null; node = node.next)
+				buffer.add((T) (keys ? node.key : node.value));
+		}
+
+		@Override
+		public boolean hasNext() {
+			return bufferIndex < buffer.size();
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			T result = buffer.get(bufferIndex++);
+			if(bufferIndex == buffer.size())
+				fillBuffer();
+			return result;
+		}
+	}
+
+}
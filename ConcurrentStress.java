@@ -0,0 +1,293 @@
+package hashedDictionary;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Stress runs that re-check the linearization points of the thread-safe dictionaries.
+ * Each run either completes or throws an IllegalStateException describing the first
+ * interleaving that broke an invariant:
+ *
+ * sameKeyAdd:        4 threads add one absent key at the same instant; exactly one add must return null.
+ *                    Alternate rounds put the key at the end of a long colliding chain, the path on
+ *                    which ConcurrentHashedDictionary writers take a bucket lock.
+ * addVersusRemove:   one thread removes a present key while another adds it; the returned values and
+ *                    the final state must match one of the two serial orders.
+ * writersIterators:  8 writers change disjoint keys, checking each result against a private mirror,
+ *                    while 2 threads iterate; the final contents must equal the union of the mirrors.
+ * growFromOne:       8 writers fill a dictionary created with capacity 1, so the table is doubled many
+ *                    times under them (cooperatively in ConcurrentHashedDictionary), while a reader
+ *                    checks that every key already added stays visible.
+ *
+ * Usage: java hashedDictionary.ConcurrentStress [rounds [class ...]]
+ * rounds defaults to 200000 (the rounds of sameKeyAdd and addVersusRemove), and the classes to
+ * ConcurrentHashedDictionary, StampedHashedDictionary and CopyOnWriteHashedDictionary.
+ */
+public class ConcurrentStress {
+
+	private static final int RACERS = 4;
+	private static final int WRITERS = 8;
+	private static final int ITERATORS = 2;
+	private static final int WRITER_OPERATIONS = 300000;
+	private static final int GROWTH_KEYS_PER_WRITER = 250000;
+
+	// a key whose hash code collides with every other, to build long chains
+	private static final class CollidingKey {
+		private final int id;
+
+		CollidingKey(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public int hashCode() {
+			return 7;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof CollidingKey && ((CollidingKey) other).id == id;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		String[] classes = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length)
+				: new String[] {"ConcurrentHashedDictionary", "StampedHashedDictionary", "CopyOnWriteHashedDictionary"};
+		ExecutorService executor = Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task);
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			for(String name : classes) {
+				IntFunction<DictionaryInterface<Object, Integer>> factory = factoryFor(name);
+				sameKeyAdd(name, factory, rounds, executor);
+				addVersusRemove(name, factory, rounds, executor);
+				writersIterators(name, factory, executor);
+				growFromOne(name, factory);
+				System.out.println(name + ": ok");
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static IntFunction<DictionaryInterface<Object, Integer>> factoryFor(String name) {
+		switch(name) {
+		case "ConcurrentHashedDictionary":
+			return ConcurrentHashedDictionary::new;
+		case "StampedHashedDictionary":
+			return StampedHashedDictionary::new;
+		case "CopyOnWriteHashedDictionary":
+			return CopyOnWriteHashedDictionary::new;
+		default:
+			throw new IllegalArgumentException("not a thread-safe dictionary: " + name);
+		}
+	}
+
+	private static void sameKeyAdd(String name, IntFunction<DictionaryInterface<Object, Integer>> factory, int rounds,
+			ExecutorService executor) throws Exception {
+		CyclicBarrier start = new CyclicBarrier(RACERS);
+		for(int round = 0; round < rounds; round++) {
+			DictionaryInterface<Object, Integer> dictionary = factory.apply(2);
+			boolean longChain = (round & 1) == 1;
+			if(longChain) {
+				for(int i = 0; i < 12; i++)
+					dictionary.add(new CollidingKey(100 + i), i);
+			}
+			Object key = longChain ? new CollidingKey(1) : Integer.valueOf(1);
+			Integer[] results = new Integer[RACERS];
+			Future<?>[] racers = new Future<?>[RACERS];
+			for(int t = 0; t < RACERS; t++) {
+				int racer = t;
+				racers[t] = executor.submit(() -> {
+					start.await();
+					results[racer] = dictionary.add(key, racer);
+					return null;
+				});
+			}
+			for(Future<?> racer : racers)
+				racer.get();
+			int winners = 0;
+			for(Integer result : results) {
+				if(result == null)
+					winners++;
+			}
+			check(winners == 1, name, "sameKeyAdd round " + round + ": " + winners + " adds found the key absent");
+			check(dictionary.getSize() == (longChain ? 13 : 1), name, "sameKeyAdd round " + round + ": size " + dictionary.getSize());
+		}
+	}
+
+	private static void addVersusRemove(String name, IntFunction<DictionaryInterface<Object, Integer>> factory, int rounds,
+			ExecutorService executor) throws Exception {
+		CyclicBarrier start = new CyclicBarrier(2);
+		for(int round = 0; round < rounds; round++) {
+			DictionaryInterface<Object, Integer> dictionary = factory.apply(2);
+			boolean longChain = (round & 1) == 1;
+			if(longChain) {
+				for(int i = 0; i < 12; i++)
+					dictionary.add(new CollidingKey(100 + i), i);
+			}
+			Object key = longChain ? new CollidingKey(1) : Integer.valueOf(1);
+			dictionary.add(key, -1);
+			Integer[] results = new Integer[2];
+			Future<?> remover = executor.submit(() -> {
+				start.await();
+				results[0] = dictionary.remove(key);
+				return null;
+			});
+			Future<?> adder = executor.submit(() -> {
+				start.await();
+				results[1] = dictionary.add(key, -2);
+				return null;
+			});
+			remover.get();
+			adder.get();
+			Integer last = dictionary.getValue(key);
+			// remove then add, or add then remove
+			boolean removedFirst = Objects.equals(results[0], -1) && results[1] == null && Objects.equals(last, -2);
+			boolean addedFirst = Objects.equals(results[1], -1) && Objects.equals(results[0], -2) && last == null;
+			check(removedFirst || addedFirst, name, "addVersusRemove round " + round + ": remove returned " + results[0]
+					+ ", add returned " + results[1] + ", then the key maps to " + last);
+			check(dictionary.getSize() == (longChain ? 12 : 0) + (last == null ? 0 : 1), name,
+					"addVersusRemove round " + round + ": size " + dictionary.getSize());
+		}
+	}
+
+	private static void writersIterators(String name, IntFunction<DictionaryInterface<Object, Integer>> factory,
+			ExecutorService executor) throws Exception {
+		for(int round = 0; round < 4; round++) {
+			DictionaryInterface<Object, Integer> dictionary = factory.apply(16);
+			int keyRange = round % 2 == 0 ? 20000 : 500;			// many keys, or few keys changed often
+			AtomicBoolean done = new AtomicBoolean();
+			@SuppressWarnings("unchecked")
+			Future<Map<Integer, Integer>>[] writers = new Future[WRITERS];
+			for(int t = 0; t < WRITERS; t++) {
+				int writer = t;
+				long seed = round * 31L + t;
+				writers[t] = executor.submit(() -> {
+					Map<Integer, Integer> mirror = new HashMap<>();
+					Random random = new Random(seed);
+					for(int i = 0; i < WRITER_OPERATIONS; i++) {
+						Integer key = random.nextInt(keyRange) * WRITERS + writer;		// keys of one writer only
+						int operation = random.nextInt(4);
+						if(operation < 2) {
+							Integer value = random.nextInt();
+							check(Objects.equals(dictionary.add(key, value), mirror.put(key, value)), name, "writersIterators: add of " + key);
+						}
+						else if(operation == 2)
+							check(Objects.equals(dictionary.remove(key), mirror.remove(key)), name, "writersIterators: remove of " + key);
+						else
+							check(Objects.equals(dictionary.getValue(key), mirror.get(key)), name, "writersIterators: getValue of " + key);
+					}
+					return mirror;
+				});
+			}
+			Future<?>[] iterators = new Future<?>[ITERATORS];
+			for(int t = 0; t < ITERATORS; t++) {
+				iterators[t] = executor.submit(() -> {
+					while(!done.get()) {
+						Iterator<Object> keys = dictionary.getKeyIterator();
+						while(keys.hasNext())
+							check(keys.next() instanceof Integer, name, "writersIterators: iterator returned a foreign key");
+					}
+					return null;
+				});
+			}
+			Map<Integer, Integer> expected = new HashMap<>();
+			try {
+				for(Future<Map<Integer, Integer>> writer : writers)
+					expected.putAll(writer.get());
+			}
+			finally {
+				done.set(true);
+			}
+			for(Future<?> iterator : iterators)
+				iterator.get();
+
+			check(dictionary.getSize() == expected.size(), name, "writersIterators: size " + dictionary.getSize() + ", expected " + expected.size());
+			Map<Object, Integer> seen = new HashMap<>();
+			Iterator<Object> keys = dictionary.getKeyIterator();
+			Iterator<Integer> values = dictionary.getValueIterator();
+			while(keys.hasNext())
+				seen.put(keys.next(), values.next());
+			check(seen.equals(expected), name, "writersIterators: final contents differ from the writers' mirrors");
+		}
+	}
+
+	private static void growFromOne(String name, IntFunction<DictionaryInterface<Object, Integer>> factory) throws Exception {
+		DictionaryInterface<Object, Integer> dictionary = factory.apply(1);
+		AtomicIntegerArray added = new AtomicIntegerArray(WRITERS);		// keys each writer has finished adding
+		AtomicLong failures = new AtomicLong();
+		AtomicBoolean done = new AtomicBoolean();
+		Thread[] writers = new Thread[WRITERS];
+		for(int t = 0; t < WRITERS; t++) {
+			int writer = t;
+			writers[t] = new Thread(() -> {
+				for(int i = 0; i < GROWTH_KEYS_PER_WRITER; i++) {
+					Integer key = i * WRITERS + writer;
+					if(dictionary.add(key, key) != null)
+						failures.incrementAndGet();
+					if(i % 3 == 0) {
+						// removes and re-adds while buckets are being moved
+						if(!key.equals(dictionary.remove(key)))
+							failures.incrementAndGet();
+						dictionary.add(key, key);
+					}
+					if(!key.equals(dictionary.getValue(key)))
+						failures.incrementAndGet();
+					added.set(writer, i + 1);
+				}
+			});
+		}
+		Thread reader = new Thread(() -> {
+			Random random = new Random();
+			while(!done.get()) {
+				int writer = random.nextInt(WRITERS);
+				int count = added.get(writer);
+				if(count == 0)
+					continue;
+				Integer key = random.nextInt(count) * WRITERS + writer;
+				if(!key.equals(dictionary.getValue(key)))
+					failures.incrementAndGet();
+			}
+		});
+		reader.start();
+		for(Thread writer : writers)
+			writer.start();
+		for(Thread writer : writers)
+			writer.join();
+		done.set(true);
+		reader.join();
+
+		check(failures.get() == 0, name, "growFromOne: " + failures.get() + " operations saw a wrong value");
+		check(dictionary.getSize() == WRITERS * GROWTH_KEYS_PER_WRITER, name, "growFromOne: size " + dictionary.getSize());
+		Set<Object> seen = new HashSet<>();
+		Iterator<Object> keys = dictionary.getKeyIterator();
+		while(keys.hasNext())
+			check(seen.add(keys.next()), name, "growFromOne: iterator returned a key twice");
+		check(seen.size() == WRITERS * GROWTH_KEYS_PER_WRITER, name, "growFromOne: iterator returned " + seen.size() + " keys");
+	}
+
+	private static void check(boolean condition, String name, String message) {
+		if(!condition)
+			throw new IllegalStateException(name + " " + message);
+	}
+
+}
@@ -0,0 +1,155 @@
+package hashedDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the throughput of the thread-safe dictionaries under contention: 1, 4, 16 and 64 threads
+ * look up and replace random keys of a table of 65536 entries, at several fractions of writes.
+ * "locked" is a HashedDictionary behind one synchronized monitor, the baseline that
+ * StampedHashedDictionary's optimistic reads are measured against.
+ *
+ * Each measurement runs for a fixed time after a warm-up, and prints millions of operations per
+ * second. On a machine with fewer cores than threads, the numbers show the cost of preemption
+ * inside a critical section rather than parallel speedup.
+ *
+ * Usage: java hashedDictionary.ContentionBenchmark [seconds [dictionary ...]]
+ * seconds defaults to 2, and the dictionaries to locked, StampedHashedDictionary,
+ * ConcurrentHashedDictionary and CopyOnWriteHashedDictionary.
+ */
+public class ContentionBenchmark {
+
+	private static final int ENTRIES = 1 << 16;
+	private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+	private static final int[] WRITE_PERCENTAGES = {0, 1, 10, 50};
+	private static final int BATCH = 256;						// operations between checks of the stop flag
+
+	public static void main(String[] args) throws InterruptedException {
+		double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+		String[] names = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length)
+				: new String[] {"locked", "StampedHashedDictionary", "ConcurrentHashedDictionary", "CopyOnWriteHashedDictionary"};
+		System.out.printf("%-28s %7s %8s %12s%n", "dictionary", "writes", "threads", "Mops/s");
+		for(String name : names) {
+			for(int writePercentage : WRITE_PERCENTAGES) {
+				for(int threads : THREAD_COUNTS) {
+					DictionaryInterface<Integer, Integer> dictionary = create(name);
+					for(int i = 0; i < ENTRIES; i++)
+						dictionary.add(i, i);
+					run(dictionary, threads, writePercentage, seconds / 4);		// warm-up
+					double rate = run(dictionary, threads, writePercentage, seconds);
+					System.out.printf("%-28s %6d%% %8d %12.2f%n", name, writePercentage, threads, rate / 1e6);
+				}
+			}
+		}
+	}
+
+	// returns the operations per second of threads threads working on dictionary for seconds
+	private static double run(DictionaryInterface<Integer, Integer> dictionary, int threads, int writePercentage, double seconds)
+			throws InterruptedException {
+		LongAdder operations = new LongAdder();
+		AtomicBoolean stop = new AtomicBoolean();
+		List<Thread> workers = new ArrayList<>();
+		for(int t = 0; t < threads; t++) {
+			long seed = t;
+			Thread worker = new Thread(() -> {
+				SplittableRandom random = new SplittableRandom(seed);
+				long count = 0;
+				while(!stop.get()) {
+					for(int i = 0; i < BATCH; i++) {
+						Integer key = random.nextInt(ENTRIES);
+						if(random.nextInt(100) < writePercentage)
+							dictionary.add(key, i);
+						else
+							dictionary.getValue(key);
+					}
+					count += BATCH;
+				}
+				operations.add(count);
+			});
+			workers.add(worker);
+		}
+		for(Thread worker : workers)
+			worker.start();
+		long start = System.nanoTime();
+		Thread.sleep((long) (seconds * 1000));
+		stop.set(true);
+		for(Thread worker : workers)
+			worker.join();
+		return operations.sum() / ((System.nanoTime() - start) / 1e9);
+	}
+
+	private static DictionaryInterface<Integer, Integer> create(String name) {
+		switch(name) {
+		case "locked":
+			return new LockedDictionary<>(new HashedDictionary<>());
+		case "StampedHashedDictionary":
+			return new StampedHashedDictionary<>();
+		case "ConcurrentHashedDictionary":
+			return new ConcurrentHashedDictionary<>();
+		case "CopyOnWriteHashedDictionary":
+			return new CopyOnWriteHashedDictionary<>();
+		default:
+			throw new IllegalArgumentException("not a benchmarked dictionary: " + name);
+		}
+	}
+
+	// a dictionary that serializes every call on one monitor
+	private static class LockedDictionary<K, V> implements DictionaryInterface<K, V> {
+		private final DictionaryInterface<K, V> dictionary;
+
+		LockedDictionary(DictionaryInterface<K, V> dictionary) {
+			this.dictionary = dictionary;
+		}
+
+		@Override
+		public synchronized V add(K key, V value) {
+			return dictionary.add(key, value);
+		}
+
+		@Override
+		public synchronized V remove(K key) {
+			return dictionary.remove(key);
+		}
+
+		@Override
+		public synchronized V getValue(K key) {
+			return dictionary.getValue(key);
+		}
+
+		@Override
+		public synchronized boolean contains(K key) {
+			return dictionary.contains(key);
+		}
+
+		@Override
+		public synchronized Iterator<K> getKeyIterator() {
+			return dictionary.getKeyIterator();
+		}
+
+		@Override
+		public synchronized Iterator<V> getValueIterator() {
+			return dictionary.getValueIterator();
+		}
+
+		@Override
+		public synchronized boolean isEmpty() {
+			return dictionary.isEmpty();
+		}
+
+		@Override
+		public synchronized int getSize() {
+			return dictionary.getSize();
+		}
+
+		@Override
+		public synchronized void clear() {
+			dictionary.clear();
+		}
+	}
+
+}
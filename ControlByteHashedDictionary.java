@@ -0,0 +1,326 @@
+package hashedDictionary;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hashed dictionary in the style of SwissTable. Every slot has a control byte that is either
+ * EMPTY, DELETED or a 7-bit fingerprint of the key's hash, and the control bytes are kept in their own
+ * array, packed eight to a long. Lookups scan a group of 16 control bytes at a time with word-wide
+ * bit tricks, so keys are only compared in slots whose fingerprint matches and most unsuccessful
+ * searches finish without touching a key at all.
+ *
+ * @param <K> Object type of the search key
+ * @param <V> Object type of the value associated with the key.
+ */
+public class ControlByteHashedDictionary<K, V> implements DictionaryInterface<K, V> {
+
+	// the dictionary
+	private int numberOfEntries;
+	private int numberOfDeleted;								// slots marked DELETED
+	private static final int DEFAULT_CAPACITY = 14;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	// the hash table
+	private Object[] keys;
+	private Object[] values;									// values[i] belongs to keys[i]
+	private long[] controlWords;								// control byte of slot i is byte (i % 8) of controlWords[i / 8]
+	private int tableSize;										// must be a power of 2 and a multiple of GROUP_SIZE
+	private int groupMask;										// number of groups - 1
+	private boolean integrityOK = false;
+	private static final double MAX_LOAD_FACTOR = 0.875;		// fraction of slots that can be full or DELETED
+
+	// control bytes and group scanning
+	private static final int GROUP_SIZE = 16;					// slots scanned together (two control words)
+	private static final int EMPTY = 0x80;
+	private static final int DELETED = 0xFE;					// full slots hold a fingerprint in 0x00..0x7F
+	private static final long LSB = 0x0101010101010101L;
+	private static final long MSB = 0x8080808080808080L;
+	private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+	public ControlByteHashedDictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ControlByteHashedDictionary(int initialCapacity) {
+		initialCapacity = checkCapacity(initialCapacity);
+		numberOfEntries = 0;
+		numberOfDeleted = 0;
+
+		// smallest power of 2 that holds initialCapacity entries without exceeding the load factor
+		tableSize = getTableSizeFor((int) Math.ceil(initialCapacity / MAX_LOAD_FACTOR));
+		allocateTable(tableSize);
+		integrityOK = true;
+	}
+
+	@Override
+	public V add(K key, V value) {
+		checkIntegrity();
+		if(key == null || value == null)
+			throw new IllegalArgumentException();
+		int hash = spread(key.hashCode());
+		int index = locate(key, hash);
+		if(index >= 0) {
+			// update the existing entry
+			@SuppressWarnings("unchecked")
+			V replacedValue = (V) values[index];
+			values[index] = value;
+			return replacedValue;
+		}
+		index = findInsertionSlot(hash);
+		if(getControlByte(index) == DELETED)
+			numberOfDeleted--;
+		else if(tableSize == MAX_CAPACITY && numberOfEntries + numberOfDeleted == tableSize - 1)
+			throw new IllegalStateException("dictionary is full");	// at least one slot must stay EMPTY to end a probe
+		setControlByte(index, getFingerprint(hash));
+		keys[index] = key;
+		values[index] = value;
+		numberOfEntries++;
+		// ensure hash table is large enough for another addition
+		if(isHashTableTooFull())
+			rehash();
+		return null;
+	}
+
+	@Override
+	public V remove(K key) {
+		checkIntegrity();
+		if(key == null)
+			return null;
+		int index = locate(key, spread(key.hashCode()));
+		if(index < 0)
+			return null;
+		@SuppressWarnings("unchecked")
+		V removedValue = (V) values[index];
+		keys[index] = null;
+		values[index] = null;
+		// a probe only moves past a group that has no EMPTY slot, so a slot in a group that
+		// still has one can be reused as EMPTY without cutting any probe sequence short
+		int groupStart = index & -GROUP_SIZE;
+		if(matchEmpty(controlWords[groupStart >>> 3]) != 0 || matchEmpty(controlWords[(groupStart >>> 3) + 1]) != 0)
+			setControlByte(index, EMPTY);
+		else {
+			setControlByte(index, DELETED);
+			numberOfDeleted++;
+		}
+		numberOfEntries--;
+		return removedValue;
+	}
+
+	@Override
+	public V getValue(K key) {
+		checkIntegrity();
+		if(key == null)
+			return null;
+		int index = locate(key, spread(key.hashCode()));
+		if(index < 0)
+			return null;
+		@SuppressWarnings("unchecked")
+		V result = (V) values[index];
+		return result;
+	}
+
+	@Override
+	public boolean contains(K key) {
+		checkIntegrity();
+		if(key == null)
+			return false;
+		return locate(key, spread(key.hashCode())) >= 0;
+	}
+
+	@Override
+	public Iterator<K> getKeyIterator() {
+		checkIntegrity();
+		return new SlotIterator<>(keys);
+	}
+
+	@Override
+	public Iterator<V> getValueIterator() {
+		checkIntegrity();
+		return new SlotIterator<>(values);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (numberOfEntries == 0);
+	}
+
+	@Override
+	public int getSize() {
+		return numberOfEntries;
+	}
+
+	@Override
+	public void clear() {
+		checkIntegrity();
+		allocateTable(tableSize);
+		numberOfEntries = 0;
+		numberOfDeleted = 0;
+	}
+
+	// returns the slot holding key, or -1 if key is not in the table
+	private int locate(K key, int hash) {
+		long fingerprints = LSB * getFingerprint(hash);
+		int group = getGroupIndex(hash);
+		for(int step = 1; step <= groupMask + 1; step++) {
+			int word = group * (GROUP_SIZE / 8);
+			for(int w = 0; w < GROUP_SIZE / 8; w++) {
+				long control = controlWords[word + w];
+				long candidates = matchByte(control, fingerprints);
+				while(candidates != 0) {
+					int index = ((word + w) << 3) + (Long.numberOfTrailingZeros(candidates) >>> 3);
+					if(keys[index].equals(key))
+						return index;
+					candidates &= candidates - 1;
+				}
+			}
+			// an EMPTY slot means the key would have been placed in this group
+			if(matchEmpty(controlWords[word]) != 0 || matchEmpty(controlWords[word + 1]) != 0)
+				return -1;
+			group = (group + step) & groupMask;		// triangular probing visits every group
+		}
+		return -1;
+	}
+
+	// returns the first EMPTY or DELETED slot along the probe sequence of hash
+	private int findInsertionSlot(int hash) {
+		int group = getGroupIndex(hash);
+		for(int step = 1; ; step++) {
+			int word = group * (GROUP_SIZE / 8);
+			for(int w = 0; w < GROUP_SIZE / 8; w++) {
+				long free = controlWords[word + w] & MSB;
+				if(free != 0)
+					return ((word + w) << 3) + (Long.numberOfTrailingZeros(free) >>> 3);
+			}
+			group = (group + step) & groupMask;
+		}
+	}
+
+	// grows the table, or rebuilds it at the same size when most of the used slots are DELETED
+	private void rehash() {
+		int newSize = tableSize;
+		if(numberOfEntries > tableSize / 2) {
+			if(tableSize == MAX_CAPACITY && numberOfDeleted == 0)
+				return;		// already at the largest table; nothing to reclaim
+			if(tableSize < MAX_CAPACITY)
+				newSize = tableSize * 2;
+		}
+		Object[] oldKeys = keys;
+		Object[] oldValues = values;
+		tableSize = newSize;
+		allocateTable(tableSize);
+		numberOfDeleted = 0;
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != null) {
+				int hash = spread(oldKeys[i].hashCode());
+				int index = findInsertionSlot(hash);
+				setControlByte(index, getFingerprint(hash));
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocateTable(int size) {
+		keys = new Object[size];
+		values = new Object[size];
+		controlWords = new long[size / 8];
+		Arrays.fill(controlWords, LSB * EMPTY);
+		groupMask = size / GROUP_SIZE - 1;
+	}
+
+	private boolean isHashTableTooFull() {
+		double loadFactor = (double)(numberOfEntries + numberOfDeleted) / (double)tableSize;
+		if(loadFactor > MAX_LOAD_FACTOR)
+			return true;
+		return false;
+	}
+
+	private void checkIntegrity() {
+		if(!integrityOK)
+			throw new IllegalStateException();
+	}
+
+	private static int spread(int hashCode) {
+		int hash = hashCode * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	private int getGroupIndex(int hash) {
+		return (hash >>> 7) & groupMask;
+	}
+
+	private static int getFingerprint(int hash) {
+		return hash & 0x7F;
+	}
+
+	private int getControlByte(int index) {
+		return (int) (controlWords[index >>> 3] >>> ((index & 7) << 3)) & 0xFF;
+	}
+
+	private void setControlByte(int index, int control) {
+		int shift = (index & 7) << 3;
+		long word = controlWords[index >>> 3];
+		controlWords[index >>> 3] = (word & ~(0xFFL << shift)) | ((long) control << shift);
+	}
+
+	// sets the high bit of every byte of control that equals the byte repeated in pattern
+	private static long matchByte(long control, long pattern) {
+		long x = control ^ pattern;
+		return ~(((x & LOW7) + LOW7) | x | LOW7);
+	}
+
+	// sets the high bit of every EMPTY byte; DELETED shares the high bit but also has bit 1 set
+	private static long matchEmpty(long control) {
+		return control & ~(control << 6) & MSB;
+	}
+
+	private int getTableSizeFor(int num) {
+		if(num <= GROUP_SIZE)
+			return GROUP_SIZE;
+		if(num >= MAX_CAPACITY)
+			return MAX_CAPACITY;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+	// walks the full slots of one of the parallel arrays
+	private class SlotIterator<T> implements Iterator<T> {
+		private final Object[] slots;
+		private final Object[] keySlots = keys;
+		private int nextIndex;
+
+		SlotIterator(Object[] slots) {
+			this.slots = slots;
+			nextIndex = advance(0);
+		}
+
+		private int advance(int from) {
+			while(from < keySlots.length && keySlots[from] == null)
+				from++;
+			return from;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextIndex < keySlots.length;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			@SuppressWarnings("unchecked")
+			T result = (T) slots[nextIndex];
+			nextIndex = advance(nextIndex + 1);
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,284 @@
+package hashedDictionary;
+
+import hashedDictionary.HashChains.Node;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe hashed dictionary for tables that are read constantly and changed rarely.
+ * The entries live in an immutable table published through one volatile reference, so a lookup
+ * makes one volatile read and takes no lock. add, remove, clear and replaceAll build a new table
+ * and publish it in one write; writers take a lock only to order themselves.
+ *
+ * The buckets are split into chunks of about the square root of the number of buckets. A new
+ * table copies the array of chunks, the one chunk holding the changed bucket, and the nodes of
+ * that bucket's chain before the changed one; every other chunk, bucket and node is shared with the
+ * old table. A change therefore costs about the square root of the table size instead of the whole
+ * table. Growing the table rebuilds it completely.
+ *
+ * The iterators walk the table that was current when they were created, and are unaffected by
+ * later changes.
+ *
+ * @param <K> Object type of the search key
+ * @param <V> Object type of the value associated with the key.
+ */
+public class CopyOnWriteHashedDictionary<K, V> implements DictionaryInterface<K, V> {
+
+	// the dictionary
+	private volatile Table<K, V> table;							// the current entries; a published table never changes
+	private final ReentrantLock writeLock = new ReentrantLock();	// orders the writers, each of which publishes a new table
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	// the hash table
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+
+	public CopyOnWriteHashedDictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public CopyOnWriteHashedDictionary(int initialCapacity) {
+		table = new Table<>(getBucketCountFor(checkCapacity(initialCapacity)));
+	}
+
+	@Override
+	public V add(K key, V value) {
+		if(key == null || value == null)
+			throw new IllegalArgumentException();
+		int hash = HashChains.hash(key);
+		writeLock.lock();
+		try {
+			Table<K, V> current = table;
+			int index = current.getIndex(hash);
+			Node<K, V> head = current.getBucket(index);
+			Node<K, V> node = HashChains.findNode(head, hash, key);
+			if(node != null) {
+				if(node.value != value)
+					table = current.withBucket(index, HashChains.replaceNode(head, node, new Node<>(key, value, hash, node.next)), current.size);
+				return node.value;
+			}
+			Node<K, V> newHead = new Node<>(key, value, hash, head);
+			if(isTooFull(current.size + 1, current.getBucketCount()) && current.getBucketCount() < MAX_CAPACITY) {
+				// ensure hash table is large enough for another addition
+				Table<K, V> enlarged = new Table<>(current.getBucketCount() * 2);
+				for(int i = 0; i < current.getBucketCount(); i++)
+					enlarged.addAll(i == index ? newHead : current.getBucket(i));
+				table = enlarged;
+			}
+			else
+				table = current.withBucket(index, newHead, current.size + 1);
+			return null;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public V remove(K key) {
+		if(key == null)
+			return null;
+		int hash = HashChains.hash(key);
+		writeLock.lock();
+		try {
+			Table<K, V> current = table;
+			int index = current.getIndex(hash);
+			Node<K, V> head = current.getBucket(index);
+			Node<K, V> node = HashChains.findNode(head, hash, key);
+			if(node == null)
+				return null;
+			table = current.withBucket(index, HashChains.replaceNode(head, node, node.next), current.size - 1);
+			return node.value;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public V getValue(K key) {
+		if(key == null)
+			return null;
+		int hash = HashChains.hash(key);
+		Table<K, V> current = table;
+		Node<K, V> node = HashChains.findNode(current.getBucket(current.getIndex(hash)), hash, key);
+		return node == null ? null : node.value;
+	}
+
+	@Override
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	/**
+	 * Replaces every entry of this dictionary with the entries of a map, in one change that readers
+	 * see either entirely or not at all.
+	 * @param entries The new entries of the dictionary. Its keys and values must not be null.
+	 */
+	public void replaceAll(Map<? extends K, ? extends V> entries) {
+		Table<K, V> replacement = new Table<>(getBucketCountFor(Math.min(entries.size(), MAX_CAPACITY)));
+		for(Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+			K key = entry.getKey();
+			V value = entry.getValue();
+			if(key == null || value == null)
+				throw new IllegalArgumentException();
+			replacement.addNew(new Node<>(key, value, HashChains.hash(key), null));
+		}
+		writeLock.lock();
+		try {
+			table = replacement;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public Iterator<K> getKeyIterator() {
+		return new TableIterator<>(table, true);
+	}
+
+	@Override
+	public Iterator<V> getValueIterator() {
+		return new TableIterator<>(table, false);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return table.size == 0;
+	}
+
+	@Override
+	public int getSize() {
+		return table.size;
+	}
+
+	@Override
+	public void clear() {
+		writeLock.lock();
+		try {
+			table = new Table<>(getBucketCountFor(DEFAULT_CAPACITY));
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	private static boolean isTooFull(int size, int bucketCount) {
+		double loadFactor = (double)size / (double)bucketCount;
+		if(loadFactor > MAX_LOAD_FACTOR)
+			return true;
+		return false;
+	}
+
+	// the power of 2 number of buckets that holds capacity entries within the load factor
+	private static int getBucketCountFor(int capacity) {
+		int num = (int) Math.min(Math.ceil(capacity / MAX_LOAD_FACTOR), MAX_CAPACITY);
+		if(num <= 2)
+			return 2;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+	// a power of 2 number of buckets split into equal chunks; filled by addAll() and addNew() only
+	// before it is published, and never changed afterward
+	private static class Table<K, V> {
+		private final Node<K, V>[][] chunks;					// bucket i is chunks[i >>> chunkShift][i & chunkMask]
+		private final int chunkShift;
+		private final int chunkMask;
+		private int size;
+
+		@SuppressWarnings("unchecked")
+		Table(int bucketCount) {
+			int bucketBits = Integer.numberOfTrailingZeros(bucketCount);
+			chunkShift = (bucketBits + 1) / 2;
+			chunkMask = (1 << chunkShift) - 1;
+			chunks = (Node<K, V>[][]) new Node[bucketCount >>> chunkShift][1 << chunkShift];
+		}
+
+		// a table sharing every chunk of source except the one whose bucket index is replaced by head
+		private Table(Table<K, V> source, int index, Node<K, V> head, int size) {
+			chunkShift = source.chunkShift;
+			chunkMask = source.chunkMask;
+			chunks = source.chunks.clone();
+			int chunk = index >>> chunkShift;
+			chunks[chunk] = chunks[chunk].clone();
+			chunks[chunk][index & chunkMask] = head;
+			this.size = size;
+		}
+
+		Table<K, V> withBucket(int index, Node<K, V> head, int newSize) {
+			return new Table<>(this, index, head, newSize);
+		}
+
+		int getBucketCount() {
+			return chunks.length << chunkShift;
+		}
+
+		int getIndex(int hash) {
+			return hash & (getBucketCount() - 1);
+		}
+
+		Node<K, V> getBucket(int index) {
+			return chunks[index >>> chunkShift][index & chunkMask];
+		}
+
+		// copies the nodes of a chain into this table
+		void addAll(Node<K, V> chain) {
+			for(Node<K, V> node = chain; node != null; node = node.next)
+				addNew(node);
+		}
+
+		// adds a copy of node, whose key is not yet in this table
+		void addNew(Node<K, V> node) {
+			int index = getIndex(node.hash);
+			Node<K, V>[] chunk = chunks[index >>> chunkShift];
+			chunk[index & chunkMask] = new Node<>(node.key, node.value, node.hash, chunk[index & chunkMask]);
+			size++;
+		}
+	}
+
+	// walks the buckets of one table
+	private static class TableIterator<K, V, T> implements Iterator<T> {
+		private final Table<K, V> table;
+		private final boolean keys;
+		private int nextBucket;
+		private Node<K, V> nextNode;
+
+		TableIterator(Table<K, V> table, boolean keys) {
+			this.table = table;
+			this.keys = keys;
+			advance(null);
+		}
+
+		private void advance(Node<K, V> node) {
+			nextNode = node == null ? null : node.next;
+			while(nextNode == null && nextBucket < table.getBucketCount())
+				nextNode = table.getBucket(nextBucket++);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextNode != null;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			Node<K, V> node = nextNode;
+			advance(node);
+			@SuppressWarnings("unchecked")
+			T result = (T) (keys ? node.key : node.value);
+			return result;
+		}
+	}
+
+}
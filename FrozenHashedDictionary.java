@@ -0,0 +1,312 @@
+package hashedDictionary;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An immutable hashed dictionary built once from the entries of another dictionary.
+ * Keys are placed by a minimal perfect hash function (CHD, "compress, hash and displace"), so every
+ * key has a slot of its own in arrays exactly as long as the number of entries: a lookup computes
+ * one slot and compares one key, and there are no empty slots or per-entry objects.
+ *
+ * The keys are split into small buckets by one hash, and buckets are placed largest first, each
+ * with the first displacement that sends all its keys to free slots. The table stores one
+ * displacement per bucket of about 4 keys.
+ * Keys whose hash codes are equal cannot be separated by any function of the hash code, so they
+ * are kept in a small HashedDictionary that is searched only when the slot holds a different key.
+ *
+ * add, remove and clear throw UnsupportedOperationException.
+ *
+ * @param <K> Object type of the search key
+ * @param <V> Object type of the value associated with the key.
+ */
+public class FrozenHashedDictionary<K, V> implements DictionaryInterface<K, V> {
+
+	// the dictionary
+	private final int numberOfEntries;
+	private final HashingStrategy<? super K> hashingStrategy;
+
+	// the hash table
+	private final Object[] keys;								// slots below tableSize are placed by the perfect hash, the rest are overflow entries
+	private final Object[] values;								// values[i] belongs to keys[i]
+	private final int tableSize;								// number of keys placed by the perfect hash
+	private final int[] displacements;							// displacement of each bucket
+	private final long seed;									// seed of the hash the table was built with
+	private final HashedDictionary<K, V> overflow;				// keys that share a hash code, or null if there are none
+	private static final int AVERAGE_BUCKET_SIZE = 4;
+
+	/**
+	 * Creates an immutable copy of a dictionary. A HashedDictionary is copied with its hashing strategy;
+	 * other dictionaries are read through their key iterator and compared with equals().
+	 * @param dictionary The dictionary to copy.
+	 * @return A FrozenHashedDictionary holding the entries of dictionary.
+	 */
+	public static <K, V> FrozenHashedDictionary<K, V> copyOf(DictionaryInterface<K, V> dictionary) {
+		if(dictionary instanceof HashedDictionary)
+			return ((HashedDictionary<K, V>) dictionary).freeze();
+		Object[] entryKeys = new Object[dictionary.getSize()];
+		Object[] entryValues = new Object[entryKeys.length];
+		Iterator<K> keyIterator = dictionary.getKeyIterator();
+		for(int i = 0; i < entryKeys.length; i++) {
+			K key = keyIterator.next();
+			entryKeys[i] = key;
+			entryValues[i] = dictionary.getValue(key);
+		}
+		return new FrozenHashedDictionary<>(entryKeys, entryValues, HashingStrategy.natural());
+	}
+
+	// entryKeys must be distinct under hashingStrategy; the arrays are not kept
+	FrozenHashedDictionary(Object[] entryKeys, Object[] entryValues, HashingStrategy<? super K> hashingStrategy) {
+		this.hashingStrategy = hashingStrategy;
+		numberOfEntries = entryKeys.length;
+		keys = new Object[numberOfEntries];
+		values = new Object[numberOfEntries];
+
+		int[] hashCodes = new int[numberOfEntries];
+		for(int i = 0; i < numberOfEntries; i++) {
+			@SuppressWarnings("unchecked")
+			K key = (K) entryKeys[i];
+			hashCodes[i] = hashingStrategy.hashCode(key);
+		}
+		int[] sharedHashCodes = findSharedHashCodes(hashCodes);
+
+		// perfect hash keys first, overflow keys at the end
+		int[] placed = new int[numberOfEntries];
+		int placedCount = 0;
+		int overflowIndex = numberOfEntries;
+		HashedDictionary<K, V> overflowEntries = null;
+		for(int i = 0; i < numberOfEntries; i++) {
+			if(Arrays.binarySearch(sharedHashCodes, hashCodes[i]) < 0)
+				placed[placedCount++] = i;
+			else {
+				if(overflowEntries == null)
+					overflowEntries = new HashedDictionary<>(numberOfEntries - placedCount, hashingStrategy);
+				@SuppressWarnings("unchecked")
+				K key = (K) entryKeys[i];
+				@SuppressWarnings("unchecked")
+				V value = (V) entryValues[i];
+				overflowEntries.add(key, value);
+				overflowIndex--;
+				keys[overflowIndex] = key;
+				values[overflowIndex] = value;
+			}
+		}
+		overflow = overflowEntries;
+		tableSize = placedCount;
+		displacements = new int[Math.max(1, (tableSize + AVERAGE_BUCKET_SIZE - 1) / AVERAGE_BUCKET_SIZE)];
+
+		// a seed that leaves some bucket without a displacement is very rare; another one is tried
+		long buildSeed;
+		do {
+			buildSeed = ThreadLocalRandom.current().nextLong();
+		} while(!placeKeys(buildSeed, placed, hashCodes, entryKeys, entryValues));
+		seed = buildSeed;
+	}
+
+	@Override
+	public V add(K key, V value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public V remove(K key) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public V getValue(K key) {
+		int index = locate(key);
+		if(index >= 0) {
+			@SuppressWarnings("unchecked")
+			V result = (V) values[index];
+			return result;
+		}
+		if(overflow == null || key == null)
+			return null;
+		return overflow.getValue(key);
+	}
+
+	@Override
+	public boolean contains(K key) {
+		if(locate(key) >= 0)
+			return true;
+		return overflow != null && overflow.contains(key);
+	}
+
+	@Override
+	public Iterator<K> getKeyIterator() {
+		return new ArrayIterator<>(keys);
+	}
+
+	@Override
+	public Iterator<V> getValueIterator() {
+		return new ArrayIterator<>(values);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (numberOfEntries == 0);
+	}
+
+	@Override
+	public int getSize() {
+		return numberOfEntries;
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	// returns the slot holding key, or -1 if key is not placed by the perfect hash
+	private int locate(K key) {
+		if(key == null || tableSize == 0)
+			return -1;
+		long hash = mix(hashingStrategy.hashCode(key) ^ seed);
+		int index = getSlot(hash, displacements[getBucket(hash)]);
+		@SuppressWarnings("unchecked")
+		K slotKey = (K) keys[index];
+		if(hashingStrategy.equals(slotKey, key))
+			return index;
+		return -1;
+	}
+
+	// finds a displacement for every bucket of the keys at the given indices, filling the table;
+	// returns false if some bucket has none below the search limit
+	private boolean placeKeys(long buildSeed, int[] placed, int[] hashCodes, Object[] entryKeys, Object[] entryValues) {
+		int bucketCount = displacements.length;
+		long[] hashes = new long[tableSize];
+		int[] bucketStart = new int[bucketCount + 1];
+		for(int i = 0; i < tableSize; i++) {
+			hashes[i] = mix(hashCodes[placed[i]] ^ buildSeed);
+			bucketStart[getBucket(hashes[i], bucketCount) + 1]++;
+		}
+
+		// group the keys by bucket (counting sort), then order the buckets from largest to smallest
+		int maxBucketSize = 0;
+		for(int b = 0; b < bucketCount; b++) {
+			maxBucketSize = Math.max(maxBucketSize, bucketStart[b + 1]);
+			bucketStart[b + 1] += bucketStart[b];
+		}
+		int[] members = new int[tableSize];
+		long[] memberHashes = new long[tableSize];					// hashes in the order of members, so that a bucket's are adjacent
+		int[] fill = Arrays.copyOf(bucketStart, bucketCount);
+		for(int i = 0; i < tableSize; i++) {
+			int position = fill[getBucket(hashes[i], bucketCount)]++;
+			members[position] = i;
+			memberHashes[position] = hashes[i];
+		}
+		int[] sizeStart = new int[maxBucketSize + 2];
+		for(int b = 0; b < bucketCount; b++)
+			sizeStart[maxBucketSize - (bucketStart[b + 1] - bucketStart[b]) + 1]++;
+		for(int s = 0; s <= maxBucketSize; s++)
+			sizeStart[s + 1] += sizeStart[s];
+		int[] bucketOrder = new int[bucketCount];
+		for(int b = 0; b < bucketCount; b++)
+			bucketOrder[sizeStart[maxBucketSize - (bucketStart[b + 1] - bucketStart[b])]++] = b;
+
+		// the last free slots take about tableSize tries each to hit
+		long limit = Math.min(8L * tableSize + 64, Integer.MAX_VALUE);
+		boolean[] taken = new boolean[tableSize];
+		int[] slots = new int[maxBucketSize];
+		Arrays.fill(displacements, 0);
+		for(int bucket : bucketOrder) {
+			int start = bucketStart[bucket];
+			int size = bucketStart[bucket + 1] - start;
+			if(size == 0)
+				break;
+			int displacement = 0;
+			while(!fitsBucket(memberHashes, start, size, displacement, taken, slots)) {
+				displacement++;
+				if(displacement == limit)
+					return false;
+			}
+			displacements[bucket] = displacement;
+			for(int j = 0; j < size; j++) {
+				taken[slots[j]] = true;
+				keys[slots[j]] = entryKeys[placed[members[start + j]]];
+				values[slots[j]] = entryValues[placed[members[start + j]]];
+			}
+		}
+		return true;
+	}
+
+	// sees whether displacement sends the keys of a bucket to distinct free slots, which it stores in slots
+	private boolean fitsBucket(long[] memberHashes, int start, int size, int displacement, boolean[] taken, int[] slots) {
+		for(int j = 0; j < size; j++) {
+			int slot = getSlot(memberHashes[start + j], displacement);
+			if(taken[slot])
+				return false;
+			for(int k = 0; k < j; k++) {
+				if(slots[k] == slot)
+					return false;
+			}
+			slots[j] = slot;
+		}
+		return true;
+	}
+
+	// the hash codes that occur more than once, sorted
+	private static int[] findSharedHashCodes(int[] hashCodes) {
+		int[] sorted = hashCodes.clone();
+		Arrays.sort(sorted);
+		int[] shared = new int[sorted.length / 2];
+		int count = 0;
+		for(int i = 1; i < sorted.length; i++) {
+			if(sorted[i] == sorted[i - 1] && (count == 0 || shared[count - 1] != sorted[i]))
+				shared[count++] = sorted[i];
+		}
+		return Arrays.copyOf(shared, count);
+	}
+
+	private int getBucket(long hash) {
+		return getBucket(hash, displacements.length);
+	}
+
+	private static int getBucket(long hash, int bucketCount) {
+		return reduce((int) (hash >>> 32), bucketCount);
+	}
+
+	private int getSlot(long hash, int displacement) {
+		return reduce((int) mix(hash + displacement * 0x9E3779B97F4A7C15L), tableSize);
+	}
+
+	// maps hash (as an unsigned int) onto [0, range) with a multiplication instead of a division
+	private static int reduce(int hash, int range) {
+		return (int) (((hash & 0xFFFFFFFFL) * range) >>> 32);
+	}
+
+	// Murmur3's 64-bit finalizer
+	private static long mix(long h) {
+		h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+		h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return h ^ (h >>> 33);
+	}
+
+	// walks one of the parallel arrays
+	private static class ArrayIterator<T> implements Iterator<T> {
+		private final Object[] slots;
+		private int nextIndex;
+
+		ArrayIterator(Object[] slots) {
+			this.slots = slots;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextIndex < slots.length;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			@SuppressWarnings("unchecked")
+			T result = (T) slots[nextIndex++];
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package hashedDictionary;
+
+/**
+ * Immutable separate-chaining buckets, shared by the dictionaries whose readers walk a chain
+ * without a lock. A chain is never changed once it is reachable from a bucket: a writer builds a
+ * new chain that shares the nodes after the changed one, and publishes its head. The hash spreading
+ * is also used by StampedHashedDictionary, whose chains are changed in place under its lock.
+ */
+final class HashChains {
+
+	private HashChains() {
+	}
+
+	/**
+	 * Spreads a key's hash code for a power-of-2 table. Buckets are taken from the low bits, so
+	 * every input bit has to reach them (Murmur3's 32-bit finalizer).
+	 */
+	static int hash(Object key) {
+		int hash = key.hashCode();
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		hash ^= hash >>> 16;
+		return hash;
+	}
+
+	/**
+	 * @return The node of the chain from bucket holding key, or null.
+	 */
+	static <K, V> Node<K, V> findNode(Node<K, V> bucket, int hash, K key) {
+		for(Node<K, V> node = bucket; node != null; node = node.next) {
+			if(node.hash == hash && node.key.equals(key))
+				return node;
+		}
+		return null;
+	}
+
+	/**
+	 * @return A copy of the chain from head in which target is replaced by the chain from
+	 *         replacement; the nodes after target are shared.
+	 */
+	static <K, V> Node<K, V> replaceNode(Node<K, V> head, Node<K, V> target, Node<K, V> replacement) {
+		int prefixLength = 0;
+		for(Node<K, V> node = head; node != target; node = node.next)
+			prefixLength++;
+		@SuppressWarnings("unchecked")
+		Node<K, V>[] prefix = (Node<K, V>[]) new Node[prefixLength];
+		Node<K, V> node = head;
+		for(int i = 0; i < prefixLength; i++, node = node.next)
+			prefix[i] = node;
+		Node<K, V> result = replacement;
+		for(int i = prefixLength - 1; i >= 0; i--)
+			result = new Node<>(prefix[i].key, prefix[i].value, prefix[i].hash, result);
+		return result;
+	}
+
+	static boolean isChainAtLeast(Node<?, ?> chain, int length) {
+		for(; chain != null && length > 0; chain = chain.next)
+			length--;
+		return length == 0;
+	}
+
+	// immutable, so a chain read from a bucket head never changes under its reader
+	static class Node<K, V> {
+		final K key;
+		final V value;
+		final int hash;
+		final Node<K, V> next;
+
+		Node(K key, V value, int hash, Node<K, V> next) {
+			this.key = key;
+			this.value = value;
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+
+}
@@ -1,7 +1,8 @@
 package hashedDictionary;
 
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
 
 /**
  * 
@@ -13,32 +14,129 @@ public class HashedDictionary<K, V> implements DictionaryInterface<K, V> {
 	// the dictionary
 	private int numberOfEntries;
 	private static final int DEFAULT_CAPACITY = 7;
-	private static final int MAX_CAPACITY = 10000;
+	private static final int MAX_CAPACITY = 1 << 30;
 	
 	// the hash table
-	private LinkedList<Entry>[] hashTable;						// array of buckets (linked lists)
-	private int tableSize;										// must be prime
-	private static final int MAX_SIZE = 2 * MAX_CAPACITY;		// max number of buckets in hash table
+	private Entry<K, V>[] hashTable;							// array of buckets (chains linked through Entry.next)
+	private int tableSize;										// must be prime, or a power of 2 with TableSizing.POWER_OF_TWO
+	private long tableSizeMultiplier;							// ceil(2^64 / tableSize), for reducing a hash without division
+	private final TableSizing tableSizing;
+	private static final int MAX_SIZE = 1073741789;				// max number of buckets in hash table (largest prime below 2^30)
+	private static final int MAX_POWER_OF_TWO_SIZE = 1 << 30;	// max number of buckets with TableSizing.POWER_OF_TWO
+	
+	// table sizes for TableSizing.PRIME: the largest prime below each power of 2, so each step roughly doubles
+	private static final int[] PRIMES = {
+		2, 3, 7, 13, 31, 61, 127, 251, 509, 1021, 2039, 4093, 8191, 16381, 32749, 65521, 131071,
+		262139, 524287, 1048573, 2097143, 4194301, 8388593, 16777213, 33554393, 67108859,
+		134217689, 268435399, 536870909, MAX_SIZE
+	};
 	private boolean integrityOK = false;
 	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
 	
+	// resizing
+	private final ResizeMode resizeMode;
+	private Entry<K, V>[] oldHashTable;							// table being migrated from, or null when no resize is in progress
+	private int oldTableSize;
+	private long oldTableSizeMultiplier;
+	private int migrationIndex;									// buckets of oldHashTable below this index have been moved
+	private static final int MIGRATION_STEP = 8;				// old buckets moved per operation during an incremental resize
+	
+	// tree bins: a bucket whose chain grows long is turned into a balanced tree, bounding the cost of
+	// keys with colliding hash codes to O(log n)
+	private static final int TREEIFY_THRESHOLD = 8;				// chain length at which a bucket becomes a tree
+	private static final int UNTREEIFY_THRESHOLD = 6;			// tree size at which a bucket goes back to a chain
+	private static final int MIN_TREEIFY_CAPACITY = 64;			// smaller tables only chain; they resize soon anyway
+	
+	// hashing
+	private final HashingStrategy<? super K> hashingStrategy;	// hashes and compares keys in place of hashCode() and equals()
+	private final HashSeed hashSeed;
+	private final long seed0;									// 128-bit key of this dictionary's hash function
+	private final long seed1;
+	private static final SecureRandom SEED_SOURCE = new SecureRandom();
+	
+	/**
+	 * How the hash table is enlarged once it becomes too full.
+	 */
+	public enum ResizeMode {
+		/** Rehash every entry into the larger table during the add that crossed the load factor. */
+		IMMEDIATE,
+		/** Keep both tables and move a few buckets into the larger one on each later operation. */
+		INCREMENTAL
+	}
+	
+	/**
+	 * How the number of buckets is chosen and how a hash is reduced to a bucket index.
+	 */
+	public enum TableSizing {
+		/** A prime number of buckets, indexed by hashCode() modulo the table size. */
+		PRIME,
+		/** A power of 2 number of buckets, indexed by masking a mixed hashCode(); avoids integer division. */
+		POWER_OF_TWO
+	}
+	
+	/**
+	 * Whether bucket placement depends on a secret chosen by each dictionary.
+	 */
+	public enum HashSeed {
+		/** Buckets depend only on hashCode(), so anyone who knows the keys can predict collisions. */
+		NONE,
+		/**
+		 * Each dictionary picks a random key at construction. String and byte[] keys are hashed by
+		 * content with SipHash under that key, so colliding keys cannot be chosen in advance; other keys
+		 * have the key mixed into their hashCode(), which moves them but cannot separate equal hash codes.
+		 */
+		RANDOM
+	}
+	
 	public HashedDictionary() {
 		this(DEFAULT_CAPACITY);
 	}
 	
 	public HashedDictionary(int initialCapacity) {
+		this(initialCapacity, ResizeMode.IMMEDIATE);
+	}
+	
+	public HashedDictionary(int initialCapacity, ResizeMode resizeMode) {
+		this(initialCapacity, resizeMode, TableSizing.PRIME);
+	}
+	
+	public HashedDictionary(int initialCapacity, ResizeMode resizeMode, TableSizing tableSizing) {
+		this(initialCapacity, resizeMode, tableSizing, HashSeed.NONE);
+	}
+	
+	public HashedDictionary(int initialCapacity, ResizeMode resizeMode, TableSizing tableSizing, HashSeed hashSeed) {
+		this(initialCapacity, resizeMode, tableSizing, hashSeed, HashingStrategy.natural());
+	}
+	
+	public HashedDictionary(HashingStrategy<? super K> hashingStrategy) {
+		this(DEFAULT_CAPACITY, hashingStrategy);
+	}
+	
+	public HashedDictionary(int initialCapacity, HashingStrategy<? super K> hashingStrategy) {
+		this(initialCapacity, ResizeMode.IMMEDIATE, TableSizing.PRIME, HashSeed.NONE, hashingStrategy);
+	}
+	
+	public HashedDictionary(int initialCapacity, ResizeMode resizeMode, TableSizing tableSizing, HashSeed hashSeed,
+			HashingStrategy<? super K> hashingStrategy) {
 		initialCapacity = checkCapacity(initialCapacity);
+		if(resizeMode == null || tableSizing == null || hashSeed == null || hashingStrategy == null)
+			throw new IllegalArgumentException();
+		this.resizeMode = resizeMode;
+		this.tableSizing = tableSizing;
+		this.hashSeed = hashSeed;
+		this.hashingStrategy = hashingStrategy;
+		if(hashSeed == HashSeed.RANDOM) {
+			seed0 = SEED_SOURCE.nextLong();
+			seed1 = SEED_SOURCE.nextLong();
+		} else {
+			seed0 = 0;
+			seed1 = 0;
+		}
 		numberOfEntries = 0;
 		
-		// set hash table size to initialCapacity if it is prime
-		// otherwise increase it until it is prime
-		tableSize = getNextPrime(initialCapacity);
-		checkSize(tableSize);
-		
-		// The cast is safe because the new array contains null entries
-		@SuppressWarnings("unchecked")
-		LinkedList<Entry>[] temp = (LinkedList<Entry>[])new LinkedList[tableSize];
-		hashTable = temp;
+		// set hash table size to the smallest valid size that is at least initialCapacity
+		setTableSize(getTableSizeFor(initialCapacity));
+		hashTable = newHashTable(tableSize);
 		integrityOK = true;
 	}
 
@@ -47,58 +145,74 @@ public class HashedDictionary<K, V> implements DictionaryInterface<K, V> {
 		checkIntegrity();
 		if(key == null || value == null)
 			throw new IllegalArgumentException();
-		int index = getHashIndex(key);
-		V replacedValue = null;
-		Entry newEntry = new Entry(key, value);
-		LinkedList<Entry> bucket;
-		if(hashTable[index] == null) {
-			bucket = new LinkedList<>();
-			bucket.add(newEntry);
-			hashTable[index] = bucket;
-			numberOfEntries++;
+		int hash = hash(key);
+		continueMigration(hash);
+		int index = getHashIndex(hash);
+		Entry<K, V> bucket = hashTable[index];
+		if(bucket instanceof TreeBin) {
+			TreeBin<K, V> bin = (TreeBin<K, V>) bucket;
+			TreeNode<K, V> node = bin.find(hash, key);
+			if(node != null) {
+				V replacedValue = node.getValue();
+				node.setValue(value);
+				return replacedValue;
+			}
+			bin.insert(new TreeNode<>(key, value, hash));
 		} else {
-			// a bucket already exists in that index
-			bucket = hashTable[index];
 			// update the entry in the bucket if the entry already exists
-			if(bucket.contains(newEntry)) {
-				Iterator<Entry> it = bucket.iterator();
-				Entry nextEntry;
-				while(it.hasNext()) {
-					nextEntry = it.next();
-					if(nextEntry.equals(newEntry)) {
-						replacedValue = nextEntry.getValue();
-						nextEntry.setValue(newEntry.getValue());
-						break;
-					}
+			int chainLength = 0;
+			for(Entry<K, V> nextEntry = bucket; nextEntry != null; nextEntry = nextEntry.next) {
+				if(nextEntry.getHash() == hash && hashingStrategy.equals(nextEntry.getKey(), key)) {
+					V replacedValue = nextEntry.getValue();
+					nextEntry.setValue(value);
+					return replacedValue;
 				}
-			} else {
-				// bucket does not contain the entry; add the entry to this bucket
-				bucket.add(newEntry);
-				numberOfEntries++;
+				chainLength++;
 			}
+			// bucket does not contain the key; only now is a new entry needed
+			hashTable[index] = new Entry<>(key, value, hash, bucket);
+			if(chainLength + 1 >= TREEIFY_THRESHOLD)
+				treeifyBucket(hashTable, index);
 		}
+		numberOfEntries++;
 		// ensure hash table is large enough for another addition
 		if(isHashTableTooFull())
 			enlargeHashTable();
-		return replacedValue;
+		return null;
 	}
 
 	@Override
 	public V remove(K key) {
 		checkIntegrity();
 		V removedValue = null;
-		int index = getHashIndex(key);
-		LinkedList<Entry> bucket = hashTable[index];
-		if(bucket != null) {
-			Iterator<Entry> it = bucket.iterator();
-			while(it.hasNext()) {
-				Entry nextEntry = it.next();
-				if(nextEntry.getKey().equals(key)) {
-					removedValue = nextEntry.getValue();
-					bucket.remove(nextEntry);
-					numberOfEntries--;
-				}
+		int hash = hash(key);
+		continueMigration(hash);
+		int index = getHashIndex(hash);
+		if(hashTable[index] instanceof TreeBin) {
+			TreeBin<K, V> bin = (TreeBin<K, V>) hashTable[index];
+			TreeNode<K, V> node = bin.find(hash, key);
+			if(node != null) {
+				removedValue = node.getValue();
+				bin.remove(node);
+				numberOfEntries--;
+				if(bin.getSize() <= UNTREEIFY_THRESHOLD)
+					hashTable[index] = bin.toChain();
+			}
+			return removedValue;
+		}
+		Entry<K, V> previousEntry = null;
+		for(Entry<K, V> nextEntry = hashTable[index]; nextEntry != null; nextEntry = nextEntry.next) {
+			if(nextEntry.getHash() == hash && hashingStrategy.equals(nextEntry.getKey(), key)) {
+				removedValue = nextEntry.getValue();
+				// unlink the entry from its chain
+				if(previousEntry == null)
+					hashTable[index] = nextEntry.next;
+				else
+					previousEntry.next = nextEntry.next;
+				numberOfEntries--;
+				break;
 			}
+			previousEntry = nextEntry;
 		}
 		return removedValue;
 	}
@@ -107,34 +221,41 @@ public class HashedDictionary<K, V> implements DictionaryInterface<K, V> {
 	public V getValue(K key) {
 		checkIntegrity();
 		V result = null;
-		int index = getHashIndex(key);
-		LinkedList<Entry> bucket = hashTable[index];
-		if(bucket != null) {
-			Iterator<Entry> it = bucket.iterator();
-			while(it.hasNext()) {
-				Entry nextEntry = it.next();
-				if(nextEntry.getKey().equals(key))
-					result = nextEntry.getValue();
-			}
-		}
+		if(oldHashTable != null)
+			migrateBuckets();
+		Entry<K, V> entry = findEntry(key);
+		if(entry != null)
+			result = entry.getValue();
 		return result;
 	}
 
 	@Override
 	public boolean contains(K key) {
 		checkIntegrity();
-		for(int i = 0; i < tableSize; i++) {
-			if(hashTable[i] != null) {
-				LinkedList<Entry> bucket = hashTable[i];
-				Iterator<Entry> it = bucket.iterator();
-				while(it.hasNext()) {
-					Entry nextEntry = it.next();
-					if(nextEntry.getKey().equals(key))
-						return true;
-				}
-			}
+		if(key == null)
+			return false;
+		return findEntry(key) != null;
+	}
+	
+	// searches only the bucket that key hashes to, plus its old bucket while a resize is in progress
+	private Entry<K, V> findEntry(K key) {
+		int hash = hash(key);
+		Entry<K, V> entry = findEntry(hashTable[getHashIndex(hash)], key, hash);
+		// a key whose old bucket has not been moved yet is still in the old table
+		if(entry == null && oldHashTable != null)
+			entry = findEntry(oldHashTable[getOldHashIndex(hash)], key, hash);
+		return entry;
+	}
+	
+	private Entry<K, V> findEntry(Entry<K, V> bucket, K key, int hash) {
+		if(bucket instanceof TreeBin)
+			return ((TreeBin<K, V>) bucket).find(hash, key);
+		for(Entry<K, V> nextEntry = bucket; nextEntry != null; nextEntry = nextEntry.next) {
+			// comparing the cached hashes first skips most calls to equals()
+			if(nextEntry.getHash() == hash && hashingStrategy.equals(nextEntry.getKey(), key))
+				return nextEntry;
 		}
-		return false;
+		return null;
 	}
 
 	@Override
@@ -160,35 +281,153 @@ public class HashedDictionary<K, V> implements DictionaryInterface<K, V> {
 	@Override
 	public void clear() {
 		checkIntegrity();
-		@SuppressWarnings("unchecked")
-		LinkedList<Entry>[] temp = (LinkedList<Entry>[]) new LinkedList[tableSize];
-		hashTable = temp;
+		hashTable = newHashTable(tableSize);
+		oldHashTable = null;
 		numberOfEntries = 0;
 	}
+
+	/**
+	 * Creates an immutable copy of this dictionary, which finds each key with a single probe and uses
+	 * this dictionary's hashing strategy. Later changes to this dictionary do not affect the copy.
+	 * @return A FrozenHashedDictionary holding the entries currently in this dictionary.
+	 */
+	public FrozenHashedDictionary<K, V> freeze() {
+		checkIntegrity();
+		Object[] keys = new Object[numberOfEntries];
+		Object[] values = new Object[numberOfEntries];
+		int count = collectEntries(hashTable, keys, values, 0);
+		if(oldHashTable != null)
+			collectEntries(oldHashTable, keys, values, count);
+		return new FrozenHashedDictionary<>(keys, values, hashingStrategy);
+	}
 	
-	private void enlargeHashTable() {
-		// expand table size to the next prime number after doubling size
-		// add current entries to larger hash table (rehash entries)
-		tableSize = getNextPrime(tableSize * 2);
-		checkSize(tableSize);
-		@SuppressWarnings("unchecked")
-		LinkedList<Entry>[] newHashTable = (LinkedList<Entry>[]) new LinkedList[tableSize];
-		for(int i = 0; i < hashTable.length; i++) {
-			if(hashTable[i] != null) {
-				LinkedList<Entry> bucket = hashTable[i];
-				Iterator<Entry> it = bucket.iterator();
-				while(it.hasNext()) {
-					Entry nextEntry = it.next();
-					int index = getHashIndex(nextEntry.getKey());
-					if(newHashTable[index] == null)
-						newHashTable[index] = new LinkedList<>();
-					newHashTable[index].add(nextEntry);
+	// copies the entries of table into keys and values from index count, returning the new count
+	private static int collectEntries(Entry<?, ?>[] table, Object[] keys, Object[] values, int count) {
+		for(Entry<?, ?> bucket : table) {
+			if(bucket instanceof TreeBin)
+				count = collectEntries(((TreeBin<?, ?>) bucket).root, keys, values, count);
+			else {
+				for(Entry<?, ?> nextEntry = bucket; nextEntry != null; nextEntry = nextEntry.next) {
+					keys[count] = nextEntry.getKey();
+					values[count] = nextEntry.getValue();
+					count++;
 				}
 			}
 		}
+		return count;
+	}
+	
+	private static int collectEntries(TreeNode<?, ?> node, Object[] keys, Object[] values, int count) {
+		if(node == null)
+			return count;
+		count = collectEntries(node.left, keys, values, count);
+		keys[count] = node.getKey();
+		values[count] = node.getValue();
+		return collectEntries(node.right, keys, values, count + 1);
+	}
+	
+	private void enlargeHashTable() {
+		// expand table size to the next valid size, roughly double the current one
+		// add current entries to larger hash table (rehash entries)
+		// once the table has its maximum number of buckets it stops growing and the chains get longer instead
+		if(tableSize >= getMaxTableSize())
+			return;
+		if(resizeMode == ResizeMode.INCREMENTAL) {
+			startMigration();
+			return;
+		}
+		setTableSize(getTableSizeFor(tableSize + 1));
+		Entry<K, V>[] newHashTable = newHashTable(tableSize);
+		for(int i = 0; i < hashTable.length; i++)
+			rehashBucket(hashTable[i], newHashTable);
 		hashTable = newHashTable;
 		newHashTable = null;
 	}
+	
+	// makes the current table the old table of an incremental resize and starts filling a larger one
+	private void startMigration() {
+		// a resize that is still running is finished first; with MIGRATION_STEP buckets moved per
+		// operation this only happens if most operations since the last resize were not adds
+		while(oldHashTable != null)
+			migrateBuckets();
+		oldHashTable = hashTable;
+		oldTableSize = tableSize;
+		oldTableSizeMultiplier = tableSizeMultiplier;
+		migrationIndex = 0;
+		setTableSize(getTableSizeFor(tableSize + 1));
+		hashTable = newHashTable(tableSize);
+	}
+	
+	// moves the old bucket of key, so that add and remove only need to look at the new table,
+	// then moves the next few old buckets
+	private void continueMigration(int hash) {
+		if(oldHashTable == null)
+			return;
+		moveOldBucket(getOldHashIndex(hash));
+		migrateBuckets();
+	}
+	
+	// moves up to MIGRATION_STEP old buckets, ending the resize once the old table is empty
+	private void migrateBuckets() {
+		int end = Math.min(migrationIndex + MIGRATION_STEP, oldTableSize);
+		for(; migrationIndex < end; migrationIndex++)
+			moveOldBucket(migrationIndex);
+		if(migrationIndex == oldTableSize)
+			oldHashTable = null;
+	}
+	
+	private void moveOldBucket(int oldIndex) {
+		rehashBucket(oldHashTable[oldIndex], hashTable);
+		oldHashTable[oldIndex] = null;
+	}
+	
+	// relinks the entries of one bucket of the previous table into table, which has tableSize buckets
+	private void rehashBucket(Entry<K, V> bucket, Entry<K, V>[] table) {
+		// entries that shared a tree are likely to collide again, so their new chains are checked for length
+		boolean fromTree = bucket instanceof TreeBin;
+		Entry<K, V> nextEntry = fromTree ? ((TreeBin<K, V>) bucket).toChain() : bucket;
+		while(nextEntry != null) {
+			// relink the entry itself; no new objects are needed unless it joins a tree
+			Entry<K, V> following = nextEntry.next;
+			int index = getHashIndex(nextEntry.getHash());
+			if(table[index] instanceof TreeBin)
+				((TreeBin<K, V>) table[index]).insert(TreeNode.from(nextEntry));
+			else {
+				nextEntry.next = table[index];
+				table[index] = nextEntry;
+				if(fromTree && isChainAtLeast(table[index], TREEIFY_THRESHOLD))
+					treeifyBucket(table, index);
+			}
+			nextEntry = following;
+		}
+	}
+	
+	// turns the chain in table[index] into a tree bin
+	private void treeifyBucket(Entry<K, V>[] table, int index) {
+		if(tableSize < MIN_TREEIFY_CAPACITY)
+			return;
+		TreeBin<K, V> bin = new TreeBin<>(hashingStrategy);
+		Entry<K, V> nextEntry = table[index];
+		while(nextEntry != null) {
+			Entry<K, V> following = nextEntry.next;
+			bin.insert(TreeNode.from(nextEntry));
+			nextEntry = following;
+		}
+		table[index] = bin;
+	}
+	
+	private static boolean isChainAtLeast(Entry<?, ?> chain, int length) {
+		for(; chain != null && length > 0; chain = chain.next)
+			length--;
+		return length == 0;
+	}
+	
+	private Entry<K, V>[] newHashTable(int size) {
+		// The cast is safe because the new array contains null entries
+		@SuppressWarnings("unchecked")
+		Entry<K, V>[] temp = (Entry<K, V>[]) new Entry[size];
+		return temp;
+	}
 
 	private boolean isHashTableTooFull() {
 		double loadFactor = (double)numberOfEntries / (double)tableSize;
@@ -202,33 +441,85 @@ public class HashedDictionary<K, V> implements DictionaryInterface<K, V> {
 			throw new IllegalStateException();
 	}
 
-	private int getHashIndex(K key) {
-		int hashIndex = key.hashCode() % tableSize;
-		if(hashIndex < 0)
-			hashIndex = hashIndex + tableSize;
-		return hashIndex;
+	// the hash that an entry for key caches, so that rehashing never calls hashCode() again
+	private int hash(K key) {
+		if(hashSeed == HashSeed.RANDOM)
+			return keyedHash(key);
+		int hash = hashingStrategy.hashCode(key);
+		if(tableSizing == TableSizing.POWER_OF_TWO) {
+			// masking keeps only the low bits, so every input bit has to reach them (Murmur3 finalizer)
+			hash ^= hash >>> 16;
+			hash *= 0x85EBCA6B;
+			hash ^= hash >>> 13;
+			hash *= 0xC2B2AE35;
+			hash ^= hash >>> 16;
+		}
+		return hash;
+	}
+	
+	private int keyedHash(K key) {
+		long hash;
+		// hashing the content is only consistent with equality if the strategy compares the content
+		if(key instanceof String && hashingStrategy == HashingStrategy.natural())
+			hash = SipHash.hash(seed0, seed1, (String) key);
+		else if(key instanceof byte[] && (hashingStrategy == HashingStrategy.natural()
+				|| hashingStrategy == HashingStrategy.byteArrayContent()))
+			hash = SipHash.hash(seed0, seed1, (byte[]) key);
+		else {
+			// equal hash codes stay equal, but where they land is no longer predictable (MurmurHash3 fmix64)
+			hash = (hashingStrategy.hashCode(key) ^ seed0) * 0xFF51AFD7ED558CCDL;
+			hash = (hash ^ (hash >>> 33) ^ seed1) * 0xC4CEB9FE1A85EC53L;
+			hash ^= hash >>> 33;
+		}
+		return (int) (hash ^ (hash >>> 32));
 	}
 
-	private int getNextPrime(int num) {
-		if(num <= 1)
-			return 2;
-		if(num % 2 == 0)	// ignore even numbers
-			num++;
-		// an odd integer 5 or greater is prime if it is not divisible by
-		// every odd integer up to its square root
-		boolean isPrime;
-		while(true) {
-			isPrime = true;
-			int numSqrt = (int) Math.sqrt(num);
-			for(int i = 3; i <= numSqrt; i+=2) {
-				if(num % i == 0)
-					isPrime = false;
-			}
-			if(isPrime)
-				return num;
-			else
-				num += 2;
+	private int getHashIndex(int hash) {
+		return getHashIndex(hash, tableSize, tableSizeMultiplier);
+	}
+	
+	private int getOldHashIndex(int hash) {
+		return getHashIndex(hash, oldTableSize, oldTableSizeMultiplier);
+	}
+	
+	private int getHashIndex(int hash, int tableSize, long multiplier) {
+		if(tableSizing == TableSizing.POWER_OF_TWO)
+			return hash & (tableSize - 1);
+		// hash (as an unsigned int) modulo tableSize, computed with two multiplications
+		// instead of a division (Lemire, Kaser and Kurz, "Faster Remainder by Direct Computation")
+		long lowBits = multiplier * (hash & 0xFFFFFFFFL);
+		return (int) (Math.multiplyHigh(lowBits, tableSize) + ((lowBits >> 63) & tableSize));
+	}
+	
+	private void setTableSize(int size) {
+		tableSize = size;
+		tableSizeMultiplier = Long.divideUnsigned(-1L, size) + 1;
+	}
+	
+	// smallest valid table size that is at least num
+	private int getTableSizeFor(int num) {
+		if(tableSizing == TableSizing.POWER_OF_TWO) {
+			if(num <= 2)
+				return 2;
+			return Integer.highestOneBit(Math.min(num, MAX_POWER_OF_TWO_SIZE) - 1) << 1;
 		}
+		return getNextPrime(num);
+	}
+	
+	private int getMaxTableSize() {
+		if(tableSizing == TableSizing.POWER_OF_TWO)
+			return MAX_POWER_OF_TWO_SIZE;
+		return MAX_SIZE;
+	}
+
+	// smallest prime in the PRIMES ladder that is at least num, or MAX_SIZE if num is larger
+	private int getNextPrime(int num) {
+		if(num >= MAX_SIZE)
+			return MAX_SIZE;
+		int index = Arrays.binarySearch(PRIMES, num);
+		if(index < 0)
+			index = -index - 1;		// insertion point: first prime greater than num
+		return PRIMES[index];
 	}
 
 	private int checkCapacity(int initialCapacity) {
@@ -237,28 +528,33 @@ public class HashedDictionary<K, V> implements DictionaryInterface<K, V> {
 		return initialCapacity;
 	}
 	
-	private void checkSize(int tableSize) {
-		if(tableSize > MAX_SIZE)
-			throw new IllegalArgumentException();
-	}
-	
 	// any subclass of HashedDictionary will have access to Entry
-	protected class Entry {
+	// static, so that entries do not keep a reference to the dictionary that created them
+	protected static class Entry<K, V> {
 		private K key;
 		private V value;
+		private int hash;			// hash(key), cached when the entry is created
+		private Entry<K, V> next;	// next entry in the same bucket
 		
-		Entry(K searchKey, V dataValue) {
+		Entry(K searchKey, V dataValue, int keyHash, Entry<K, V> nextEntry) {
 			key = searchKey;
 			value = dataValue;
+			hash = keyHash;
+			next = nextEntry;
 		}
 
 		public K getKey() {
 			return key;
 		}
 
+		// the cached hash is kept, so key must be equal to the key it replaces
 		public void setKey(K key) {
 			this.key = key;
 		}
+		
+		public int getHash() {
+			return hash;
+		}
 
 		public V getValue() {
 			return value;
@@ -274,8 +570,7 @@ public class HashedDictionary<K, V> implements DictionaryInterface<K, V> {
 				return false;
 			if(obj.getClass() != this.getClass())
 				return false;
-			@SuppressWarnings("unchecked")
-			Entry other = (Entry) obj;
+			Entry<?, ?> other = (Entry<?, ?>) obj;
 			if(!this.key.equals(other.key))
 				return false;
 			return true;
@@ -288,5 +583,216 @@ public class HashedDictionary<K, V> implements DictionaryInterface<K, V> {
 			return hash;
 		}
 	}
+	
+	// an entry of a tree bin; the tree is an AVL tree ordered by hash, then by compareTo() when the
+	// keys are Comparable instances of the same class, then by class name and identity hash code
+	private static class TreeNode<K, V> extends Entry<K, V> {
+		private TreeNode<K, V> left;
+		private TreeNode<K, V> right;
+		private int height;
+		
+		TreeNode(K searchKey, V dataValue, int keyHash) {
+			super(searchKey, dataValue, keyHash, null);
+			height = 1;
+		}
+		
+		// the entry itself if it is already a tree node, since a node that left a tree is only ever linked by next
+		static <K, V> TreeNode<K, V> from(Entry<K, V> entry) {
+			if(entry instanceof TreeNode) {
+				TreeNode<K, V> node = (TreeNode<K, V>) entry;
+				node.left = null;
+				node.right = null;
+				node.height = 1;
+				return node;
+			}
+			return new TreeNode<>(entry.getKey(), entry.getValue(), entry.getHash());
+		}
+	}
+	
+	// marks a bucket that holds a tree instead of a chain; its own key and value are always null
+	private static class TreeBin<K, V> extends Entry<K, V> {
+		private TreeNode<K, V> root;
+		private int size;
+		private boolean removed;			// set by remove(TreeNode, TreeNode) once the node is found
+		private final HashingStrategy<? super K> hashingStrategy;
+		private final boolean orderComparables;	// compareTo() can only direct a search if it agrees with the strategy
+		
+		TreeBin(HashingStrategy<? super K> hashingStrategy) {
+			super(null, null, 0, null);
+			this.hashingStrategy = hashingStrategy;
+			orderComparables = hashingStrategy == HashingStrategy.natural();
+		}
+		
+		int getSize() {
+			return size;
+		}
+		
+		TreeNode<K, V> find(int hash, K key) {
+			return find(root, hash, key);
+		}
+		
+		private TreeNode<K, V> find(TreeNode<K, V> node, int hash, K key) {
+			while(node != null) {
+				if(hash < node.getHash())
+					node = node.left;
+				else if(hash > node.getHash())
+					node = node.right;
+				else if(hashingStrategy.equals(node.getKey(), key))
+					return node;
+				else {
+					int comparison = orderComparables ? compareComparables(key, node.getKey()) : 0;
+					if(comparison < 0)
+						node = node.left;
+					else if(comparison > 0)
+						node = node.right;
+					else {
+						// the order gives no direction, so the key may be in either subtree
+						TreeNode<K, V> found = find(node.right, hash, key);
+						if(found != null)
+							return found;
+						node = node.left;
+					}
+				}
+			}
+			return null;
+		}
+		
+		// the key of node must not be in the tree yet
+		void insert(TreeNode<K, V> node) {
+			root = insert(root, node);
+			size++;
+		}
+		
+		private TreeNode<K, V> insert(TreeNode<K, V> subtree, TreeNode<K, V> node) {
+			if(subtree == null)
+				return node;
+			if(compare(node, subtree) <= 0)
+				subtree.left = insert(subtree.left, node);
+			else
+				subtree.right = insert(subtree.right, node);
+			return rebalance(subtree);
+		}
+		
+		void remove(TreeNode<K, V> node) {
+			removed = false;
+			root = remove(root, node);
+			if(removed)
+				size--;
+		}
+		
+		private TreeNode<K, V> remove(TreeNode<K, V> subtree, TreeNode<K, V> node) {
+			if(subtree == null)
+				return null;
+			if(subtree == node) {
+				removed = true;
+				if(subtree.left == null)
+					return subtree.right;
+				if(subtree.right == null)
+					return subtree.left;
+				// replace the node by the smallest node of its right subtree
+				TreeNode<K, V> successor = subtree.right;
+				while(successor.left != null)
+					successor = successor.left;
+				successor.right = removeSmallest(subtree.right);
+				successor.left = subtree.left;
+				return rebalance(successor);
+			}
+			int comparison = compare(node, subtree);
+			if(comparison < 0)
+				subtree.left = remove(subtree.left, node);
+			else if(comparison > 0)
+				subtree.right = remove(subtree.right, node);
+			else {
+				// equal in the order; ties were inserted to the left, but rotations may have moved them
+				subtree.left = remove(subtree.left, node);
+				if(!removed)
+					subtree.right = remove(subtree.right, node);
+			}
+			return rebalance(subtree);
+		}
+		
+		private TreeNode<K, V> removeSmallest(TreeNode<K, V> subtree) {
+			if(subtree.left == null)
+				return subtree.right;
+			subtree.left = removeSmallest(subtree.left);
+			return rebalance(subtree);
+		}
+		
+		// empties the tree and returns its nodes linked through next, in tree order
+		Entry<K, V> toChain() {
+			Entry<K, V> chain = toChain(root, null);
+			root = null;
+			size = 0;
+			return chain;
+		}
+		
+		private static <K, V> Entry<K, V> toChain(TreeNode<K, V> node, Entry<K, V> rest) {
+			if(node == null)
+				return rest;
+			rest = toChain(node.right, rest);
+			TreeNode<K, V> left = node.left;
+			node.left = null;
+			node.right = null;
+			((Entry<K, V>) node).next = rest;
+			return toChain(left, node);
+		}
+		
+		private int compare(TreeNode<?, ?> a, TreeNode<?, ?> b) {
+			int comparison = Integer.compare(a.getHash(), b.getHash());
+			if(comparison == 0 && orderComparables)
+				comparison = compareComparables(a.getKey(), b.getKey());
+			if(comparison == 0)
+				comparison = a.getKey().getClass().getName().compareTo(b.getKey().getClass().getName());
+			if(comparison == 0)
+				comparison = Integer.compare(System.identityHashCode(a.getKey()), System.identityHashCode(b.getKey()));
+			return comparison;
+		}
+		
+		// compareTo() result for keys that are Comparable instances of the same class, otherwise 0
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private static int compareComparables(Object a, Object b) {
+			if(a instanceof Comparable && a.getClass() == b.getClass())
+				return Integer.signum(((Comparable) a).compareTo(b));
+			return 0;
+		}
+		
+		private static int height(TreeNode<?, ?> node) {
+			return node == null ? 0 : node.height;
+		}
+		
+		private static <K, V> TreeNode<K, V> rebalance(TreeNode<K, V> node) {
+			int balance = height(node.left) - height(node.right);
+			if(balance > 1) {
+				if(height(node.left.left) < height(node.left.right))
+					node.left = rotateLeft(node.left);
+				return rotateRight(node);
+			}
+			if(balance < -1) {
+				if(height(node.right.right) < height(node.right.left))
+					node.right = rotateRight(node.right);
+				return rotateLeft(node);
+			}
+			node.height = 1 + Math.max(height(node.left), height(node.right));
+			return node;
+		}
+		
+		private static <K, V> TreeNode<K, V> rotateLeft(TreeNode<K, V> node) {
+			TreeNode<K, V> pivot = node.right;
+			node.right = pivot.left;
+			pivot.left = node;
+			node.height = 1 + Math.max(height(node.left), height(node.right));
+			pivot.height = 1 + Math.max(height(pivot.left), height(pivot.right));
+			return pivot;
+		}
+		
+		private static <K, V> TreeNode<K, V> rotateRight(TreeNode<K, V> node) {
+			TreeNode<K, V> pivot = node.left;
+			node.left = pivot.right;
+			pivot.right = node;
+			node.height = 1 + Math.max(height(node.left), height(node.right));
+			pivot.height = 1 + Math.max(height(pivot.left), height(pivot.right));
+			return pivot;
+		}
+	}
 
 }
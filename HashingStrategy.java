@@ -0,0 +1,93 @@
+package hashedDictionary;
+
+/**
+ * Defines how a hashed dictionary hashes and compares its search keys, in place of the keys' own
+ * hashCode() and equals(). This lets a dictionary index keys by something other than their
+ * natural equality, such as array contents or object identity, without wrapping every key.
+ *
+ * Implementations must be consistent: keys that are equal according to equals(a, b) must have the
+ * same hashCode().
+ *
+ * @param <T> Object type of the keys this strategy hashes and compares.
+ */
+public interface HashingStrategy<T> {
+
+	/**
+	 * Computes a hash code for a key.
+	 * @param key A non-null search key.
+	 * @return The key's hash code under this strategy.
+	 */
+	public int hashCode(T key);
+
+	/**
+	 * Sees whether two keys denote the same search key.
+	 * @param a A non-null search key.
+	 * @param b A non-null search key.
+	 * @return True if a and b are equal under this strategy.
+	 */
+	public boolean equals(T a, T b);
+
+	/**
+	 * Gets the strategy that uses the keys' own hashCode() and equals().
+	 * @return The natural hashing strategy.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> HashingStrategy<T> natural() {
+		return (HashingStrategy<T>) StandardHashingStrategy.NATURAL;
+	}
+
+	/**
+	 * Gets a strategy under which a key is only equal to itself (==), hashed with System.identityHashCode().
+	 * @return The identity hashing strategy.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> HashingStrategy<T> identity() {
+		return (HashingStrategy<T>) StandardHashingStrategy.IDENTITY;
+	}
+
+	/**
+	 * Gets a strategy that compares byte arrays by content.
+	 * @return The byte array content hashing strategy.
+	 */
+	@SuppressWarnings("unchecked")
+	public static HashingStrategy<byte[]> byteArrayContent() {
+		return (HashingStrategy<byte[]>) (HashingStrategy<?>) StandardHashingStrategy.BYTE_ARRAY_CONTENT;
+	}
+
+	/**
+	 * Gets a strategy that compares int arrays by content.
+	 * @return The int array content hashing strategy.
+	 */
+	@SuppressWarnings("unchecked")
+	public static HashingStrategy<int[]> intArrayContent() {
+		return (HashingStrategy<int[]>) (HashingStrategy<?>) StandardHashingStrategy.INT_ARRAY_CONTENT;
+	}
+
+	/**
+	 * Gets a strategy that compares long arrays by content.
+	 * @return The long array content hashing strategy.
+	 */
+	@SuppressWarnings("unchecked")
+	public static HashingStrategy<long[]> longArrayContent() {
+		return (HashingStrategy<long[]>) (HashingStrategy<?>) StandardHashingStrategy.LONG_ARRAY_CONTENT;
+	}
+
+	/**
+	 * Gets a strategy that compares object arrays element by element, using the elements' equals().
+	 * @return The object array content hashing strategy.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> HashingStrategy<E[]> objectArrayContent() {
+		return (HashingStrategy<E[]>) (HashingStrategy<?>) StandardHashingStrategy.OBJECT_ARRAY_CONTENT;
+	}
+
+	/**
+	 * Gets a strategy that compares strings ignoring case, as String.equalsIgnoreCase() does.
+	 * @return The case-insensitive string hashing strategy.
+	 */
+	@SuppressWarnings("unchecked")
+	public static HashingStrategy<String> caseInsensitive() {
+		return (HashingStrategy<String>) (HashingStrategy<?>) StandardHashingStrategy.CASE_INSENSITIVE;
+	}
+
+}
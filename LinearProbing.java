@@ -0,0 +1,171 @@
+package hashedDictionary;
+
+/**
+ * Linear probing over a power-of-2 array of keys, shared by the open-addressing dictionaries.
+ * Each dictionary keeps a key array in which one value (0, or null for object keys) marks an empty
+ * slot, and a parallel value array of any type; mask is the table size - 1.
+ *
+ * A key's home slot comes from multiplying it (or its hash code) by the golden ratio and folding the
+ * high bits down, so sequential ids do not fill one contiguous run of slots and hash codes differing
+ * only in their upper bits still land apart.
+ *
+ * Removal leaves no tombstones: deleteSlot() empties the slot and moves back any later entry of the
+ * same probe run that would otherwise become unreachable (Knuth's Algorithm R). At least one slot
+ * must always stay empty so that every probe ends.
+ */
+final class LinearProbing {
+
+	private LinearProbing() {
+	}
+
+	static int homeSlot(int key, int mask) {
+		int hash = key * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	static int homeSlot(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32) ^ (hash >>> 16)) & mask;
+	}
+
+	static int homeSlot(Object key, int mask) {
+		return homeSlot(key.hashCode(), mask);
+	}
+
+	/**
+	 * Probes for a key.
+	 * @return The slot holding key, or the complement (~) of the empty slot that ended the probe.
+	 */
+	static int find(int[] keys, int key, int mask) {
+		int index = homeSlot(key, mask);
+		while(keys[index] != 0) {
+			if(keys[index] == key)
+				return index;
+			index = (index + 1) & mask;
+		}
+		return ~index;
+	}
+
+	static int find(long[] keys, long key, int mask) {
+		int index = homeSlot(key, mask);
+		while(keys[index] != 0) {
+			if(keys[index] == key)
+				return index;
+			index = (index + 1) & mask;
+		}
+		return ~index;
+	}
+
+	static int find(Object[] keys, Object key, int mask) {
+		int index = homeSlot(key, mask);
+		while(keys[index] != null) {
+			if(keys[index].equals(key))
+				return index;
+			index = (index + 1) & mask;
+		}
+		return ~index;
+	}
+
+	/**
+	 * Empties a slot, moving entries of its probe run back (Algorithm R).
+	 * @param values The value array parallel to keys.
+	 * @return The slot left empty, whose value the caller may clear.
+	 */
+	static int deleteSlot(int[] keys, Object values, int hole, int mask) {
+		int index = (hole + 1) & mask;
+		while(keys[index] != 0) {
+			if(isOutsideRun(homeSlot(keys[index], mask), hole, index, mask)) {
+				keys[hole] = keys[index];
+				System.arraycopy(values, index, values, hole, 1);
+				hole = index;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[hole] = 0;
+		return hole;
+	}
+
+	static int deleteSlot(long[] keys, Object values, int hole, int mask) {
+		int index = (hole + 1) & mask;
+		while(keys[index] != 0) {
+			if(isOutsideRun(homeSlot(keys[index], mask), hole, index, mask)) {
+				keys[hole] = keys[index];
+				System.arraycopy(values, index, values, hole, 1);
+				hole = index;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[hole] = 0;
+		return hole;
+	}
+
+	static int deleteSlot(Object[] keys, Object values, int hole, int mask) {
+		int index = (hole + 1) & mask;
+		while(keys[index] != null) {
+			if(isOutsideRun(homeSlot(keys[index], mask), hole, index, mask)) {
+				keys[hole] = keys[index];
+				System.arraycopy(values, index, values, hole, 1);
+				hole = index;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[hole] = null;
+		return hole;
+	}
+
+	// the entry at index must move to hole if its home slot is not in the cyclic range (hole, index]
+	static boolean isOutsideRun(int home, int hole, int index, int mask) {
+		return ((index - home) & mask) >= ((index - hole) & mask);
+	}
+
+	/**
+	 * Moves every entry of the old arrays into the empty arrays keys and values; the keys are known
+	 * to be distinct, so each goes to the first empty slot of its probe.
+	 */
+	static void rehash(int[] oldKeys, Object oldValues, int[] keys, Object values, int mask) {
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != 0) {
+				int index = homeSlot(oldKeys[i], mask);
+				while(keys[index] != 0)
+					index = (index + 1) & mask;
+				keys[index] = oldKeys[i];
+				System.arraycopy(oldValues, i, values, index, 1);
+			}
+		}
+	}
+
+	static void rehash(long[] oldKeys, Object oldValues, long[] keys, Object values, int mask) {
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != 0) {
+				int index = homeSlot(oldKeys[i], mask);
+				while(keys[index] != 0)
+					index = (index + 1) & mask;
+				keys[index] = oldKeys[i];
+				System.arraycopy(oldValues, i, values, index, 1);
+			}
+		}
+	}
+
+	static void rehash(Object[] oldKeys, Object oldValues, Object[] keys, Object values, int mask) {
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != null) {
+				int index = homeSlot(oldKeys[i], mask);
+				while(keys[index] != null)
+					index = (index + 1) & mask;
+				keys[index] = oldKeys[i];
+				System.arraycopy(oldValues, i, values, index, 1);
+			}
+		}
+	}
+
+	/**
+	 * Ensures a table can take another entry and still keep one slot empty. A smaller table is
+	 * enlarged right after the entry goes in, so only a table of maxTableSize slots fills that far.
+	 * @throws IllegalStateException if it cannot.
+	 */
+	static void checkRoomForEntry(int numberOfEntries, int tableSize, int maxTableSize) {
+		if(tableSize == maxTableSize && numberOfEntries == tableSize - 1)
+			throw new IllegalStateException("dictionary is full");
+	}
+
+}
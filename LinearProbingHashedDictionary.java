@@ -0,0 +1,209 @@
+package hashedDictionary;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hashed dictionary that resolves collisions with linear probing instead of separate chaining.
+ * Keys and values are stored in flat parallel arrays, so an entry costs two array slots rather than
+ * an Entry object, a list node and a share of a list header.
+ * Removal shifts later entries of the probe sequence backward, so no tombstones are left behind.
+ *
+ * @param <K> Object type of the search key
+ * @param <V> Object type of the value associated with the key.
+ */
+public class LinearProbingHashedDictionary<K, V> implements DictionaryInterface<K, V> {
+
+	// the dictionary
+	private int numberOfEntries;
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	// the hash table
+	private Object[] keys;										// null marks an empty slot
+	private Object[] values;									// values[i] belongs to keys[i]
+	private int tableSize;										// must be a power of 2
+	private int mask;											// tableSize - 1
+	private boolean integrityOK = false;
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+
+	public LinearProbingHashedDictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LinearProbingHashedDictionary(int initialCapacity) {
+		initialCapacity = checkCapacity(initialCapacity);
+		numberOfEntries = 0;
+
+		// smallest power of 2 that holds initialCapacity entries without exceeding the load factor
+		tableSize = getTableSizeFor((int) Math.ceil(initialCapacity / MAX_LOAD_FACTOR));
+		allocateTable(tableSize);
+		integrityOK = true;
+	}
+
+	@Override
+	public V add(K key, V value) {
+		checkIntegrity();
+		if(key == null || value == null)
+			throw new IllegalArgumentException();
+		int index = LinearProbing.find(keys, key, mask);
+		if(index >= 0) {
+			// update the existing entry
+			@SuppressWarnings("unchecked")
+			V replacedValue = (V) values[index];
+			values[index] = value;
+			return replacedValue;
+		}
+		index = ~index;
+		LinearProbing.checkRoomForEntry(numberOfEntries, tableSize, MAX_CAPACITY);
+		keys[index] = key;
+		values[index] = value;
+		numberOfEntries++;
+		// ensure hash table is large enough for another addition
+		if(isHashTableTooFull())
+			enlargeHashTable();
+		return null;
+	}
+
+	@Override
+	public V remove(K key) {
+		checkIntegrity();
+		int index = locate(key);
+		if(index < 0)
+			return null;
+		@SuppressWarnings("unchecked")
+		V removedValue = (V) values[index];
+		values[LinearProbing.deleteSlot(keys, values, index, mask)] = null;
+		numberOfEntries--;
+		return removedValue;
+	}
+
+	@Override
+	public V getValue(K key) {
+		checkIntegrity();
+		int index = locate(key);
+		if(index < 0)
+			return null;
+		@SuppressWarnings("unchecked")
+		V result = (V) values[index];
+		return result;
+	}
+
+	@Override
+	public boolean contains(K key) {
+		checkIntegrity();
+		return locate(key) >= 0;
+	}
+
+	@Override
+	public Iterator<K> getKeyIterator() {
+		checkIntegrity();
+		return new SlotIterator<>(keys);
+	}
+
+	@Override
+	public Iterator<V> getValueIterator() {
+		checkIntegrity();
+		return new SlotIterator<>(values);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (numberOfEntries == 0);
+	}
+
+	@Override
+	public int getSize() {
+		return numberOfEntries;
+	}
+
+	@Override
+	public void clear() {
+		checkIntegrity();
+		allocateTable(tableSize);
+		numberOfEntries = 0;
+	}
+
+	// returns the slot holding key, or a negative number if key is not in the table
+	private int locate(K key) {
+		if(key == null)
+			return -1;
+		return LinearProbing.find(keys, key, mask);
+	}
+
+	private void enlargeHashTable() {
+		if(tableSize == MAX_CAPACITY)
+			return;		// already at the largest table; keep probing at a higher load
+		Object[] oldKeys = keys;
+		Object[] oldValues = values;
+		tableSize = tableSize * 2;
+		allocateTable(tableSize);
+		LinearProbing.rehash(oldKeys, oldValues, keys, values, mask);
+	}
+
+	private void allocateTable(int size) {
+		keys = new Object[size];
+		values = new Object[size];
+		mask = size - 1;
+	}
+
+	private boolean isHashTableTooFull() {
+		double loadFactor = (double)numberOfEntries / (double)tableSize;
+		if(loadFactor > MAX_LOAD_FACTOR)
+			return true;
+		return false;
+	}
+
+	private void checkIntegrity() {
+		if(!integrityOK)
+			throw new IllegalStateException();
+	}
+
+	private int getTableSizeFor(int num) {
+		if(num <= 2)
+			return 2;
+		if(num >= MAX_CAPACITY)
+			return MAX_CAPACITY;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+	// walks the occupied slots of one of the parallel arrays
+	private class SlotIterator<T> implements Iterator<T> {
+		private final Object[] slots;
+		private final Object[] keySlots = keys;
+		private int nextIndex;
+
+		SlotIterator(Object[] slots) {
+			this.slots = slots;
+			nextIndex = advance(0);
+		}
+
+		private int advance(int from) {
+			while(from < keySlots.length && keySlots[from] == null)
+				from++;
+			return from;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextIndex < keySlots.length;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			@SuppressWarnings("unchecked")
+			T result = (T) slots[nextIndex];
+			nextIndex = advance(nextIndex + 1);
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,201 @@
+package hashedDictionary;
+
+/**
+ * A hashed dictionary from long keys to long values that never boxes. Keys and values are stored in
+ * flat long arrays with linear probing, and removal shifts later entries back instead of leaving
+ * tombstones.
+ *
+ * Since a long value cannot be null, the methods that would return null in DictionaryInterface
+ * return a missing value chosen at construction (0 by default) instead. When that value can also be
+ * stored, use contains() to tell the two apart.
+ * Key 0 marks an empty slot in the key array, so an entry for key 0 is kept outside the table.
+ */
+public class LongLongHashedDictionary {
+
+	// the dictionary
+	private int numberOfEntries;
+	private final long missingValue;								// returned in place of null
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	// the entry for key 0
+	private boolean containsZeroKey;
+	private long zeroKeyValue;
+
+	// the hash table
+	private long[] keys;											// 0 marks an empty slot
+	private long[] values;										// values[i] belongs to keys[i]
+	private int tableSize;										// must be a power of 2
+	private int mask;											// tableSize - 1
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+
+	public LongLongHashedDictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongLongHashedDictionary(int initialCapacity) {
+		this(initialCapacity, 0);
+	}
+
+	public LongLongHashedDictionary(int initialCapacity, long missingValue) {
+		initialCapacity = checkCapacity(initialCapacity);
+		this.missingValue = missingValue;
+		numberOfEntries = 0;
+
+		// smallest power of 2 that holds initialCapacity entries without exceeding the load factor
+		tableSize = getTableSizeFor((int) Math.ceil(initialCapacity / MAX_LOAD_FACTOR));
+		allocateTable(tableSize);
+	}
+
+	/**
+	 * Adds a new entry to this dictionary. If the given search key already exists in the dictionary, replaces the corresponding value.
+	 * @param key The search key of the new entry.
+	 * @param value The value associated with the search key.
+	 * @return Either the missing value if the new entry was added to the dictionary or the value that was associated with key if that value was replaced.
+	 */
+	public long add(long key, long value) {
+		if(key == 0) {
+			long replacedValue = containsZeroKey ? zeroKeyValue : missingValue;
+			if(!containsZeroKey) {
+				containsZeroKey = true;
+				numberOfEntries++;
+			}
+			zeroKeyValue = value;
+			return replacedValue;
+		}
+		int index = LinearProbing.find(keys, key, mask);
+		if(index >= 0) {
+			// update the existing entry
+			long replacedValue = values[index];
+			values[index] = value;
+			return replacedValue;
+		}
+		index = ~index;
+		LinearProbing.checkRoomForEntry(numberOfEntries, tableSize, MAX_CAPACITY);
+		keys[index] = key;
+		values[index] = value;
+		numberOfEntries++;
+		// ensure hash table is large enough for another addition
+		if(isHashTableTooFull())
+			enlargeHashTable();
+		return missingValue;
+	}
+
+	/**
+	 * Removes a specific entry from this dictionary.
+	 * @param key The search key of the entry to be removed.
+	 * @return Either the value associated with the search key or the missing value if no such entry exists.
+	 */
+	public long remove(long key) {
+		if(key == 0) {
+			if(!containsZeroKey)
+				return missingValue;
+			containsZeroKey = false;
+			numberOfEntries--;
+			return zeroKeyValue;
+		}
+		int index = LinearProbing.find(keys, key, mask);
+		if(index < 0)
+			return missingValue;
+		long removedValue = values[index];
+		LinearProbing.deleteSlot(keys, values, index, mask);
+		numberOfEntries--;
+		return removedValue;
+	}
+
+	/**
+	 * Retrieves from this dictionary the value associated with a given search key.
+	 * @param key The search key of the desired entry.
+	 * @return Either the value that is associated with the search key or the missing value if no such entry exists.
+	 */
+	public long getValue(long key) {
+		if(key == 0)
+			return containsZeroKey ? zeroKeyValue : missingValue;
+		int index = LinearProbing.find(keys, key, mask);
+		if(index < 0)
+			return missingValue;
+		return values[index];
+	}
+
+	/**
+	 * Sees whether a specific entry is in this dictionary.
+	 * @param key The search key of the desired entry.
+	 * @return True if the key is associated with an entry in the dictionary.
+	 */
+	public boolean contains(long key) {
+		if(key == 0)
+			return containsZeroKey;
+		return LinearProbing.find(keys, key, mask) >= 0;
+	}
+
+	/**
+	 * Gets the value that stands for "no entry" in the results of add, remove and getValue.
+	 * @return The missing value given at construction.
+	 */
+	public long getMissingValue() {
+		return missingValue;
+	}
+
+	/**
+	 * Sees whether this dictionary is empty.
+	 * @return True if the dictionary is empty.
+	 */
+	public boolean isEmpty() {
+		return (numberOfEntries == 0);
+	}
+
+	/**
+	 * Gets the size of this dictionary.
+	 * @return The number of entries(key-value pairs) currently in the dictionary.
+	 */
+	public int getSize() {
+		return numberOfEntries;
+	}
+
+	/**
+	 * Removes all entries in this dictionary.
+	 */
+	public void clear() {
+		allocateTable(tableSize);
+		containsZeroKey = false;
+		numberOfEntries = 0;
+	}
+
+	private void enlargeHashTable() {
+		if(tableSize == MAX_CAPACITY)
+			return;		// already at the largest table; keep probing at a higher load
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		tableSize = tableSize * 2;
+		allocateTable(tableSize);
+		LinearProbing.rehash(oldKeys, oldValues, keys, values, mask);
+	}
+
+	private void allocateTable(int size) {
+		keys = new long[size];
+		values = new long[size];
+		mask = size - 1;
+	}
+
+	private boolean isHashTableTooFull() {
+		double loadFactor = (double)numberOfEntries / (double)tableSize;
+		if(loadFactor > MAX_LOAD_FACTOR)
+			return true;
+		return false;
+	}
+
+	private int getTableSizeFor(int num) {
+		if(num <= 2)
+			return 2;
+		if(num >= MAX_CAPACITY)
+			return MAX_CAPACITY;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+}
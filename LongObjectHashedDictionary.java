@@ -0,0 +1,190 @@
+package hashedDictionary;
+
+/**
+ * A hashed dictionary from long keys to object values, for tables of domain objects indexed by id.
+ * Keys are stored in a flat long[] and values in an Object[], with linear probing and
+ * backward-shift removal, so a lookup never boxes its key.
+ *
+ * As in DictionaryInterface, null values are not allowed and null is returned when no entry exists.
+ * Key 0 marks an empty slot in the key array, so an entry for key 0 is kept outside the table.
+ *
+ * @param <V> Object type of the value associated with the key.
+ */
+public class LongObjectHashedDictionary<V> {
+
+	// the dictionary
+	private int numberOfEntries;
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	// the entry for key 0
+	private V zeroKeyValue;										// null if there is no entry for key 0
+
+	// the hash table
+	private long[] keys;										// 0 marks an empty slot
+	private Object[] values;									// values[i] belongs to keys[i]
+	private int tableSize;										// must be a power of 2
+	private int mask;											// tableSize - 1
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+
+	public LongObjectHashedDictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongObjectHashedDictionary(int initialCapacity) {
+		initialCapacity = checkCapacity(initialCapacity);
+		numberOfEntries = 0;
+
+		// smallest power of 2 that holds initialCapacity entries without exceeding the load factor
+		tableSize = getTableSizeFor((int) Math.ceil(initialCapacity / MAX_LOAD_FACTOR));
+		allocateTable(tableSize);
+	}
+
+	/**
+	 * Adds a new entry to this dictionary. If the given search key already exists in the dictionary, replaces the corresponding value.
+	 * @param key The search key of the new entry.
+	 * @param value An object associated with the search key.
+	 * @return Either null if the new entry was added to the dictionary or the value that was associated with key if that value was replaced.
+	 */
+	public V add(long key, V value) {
+		if(value == null)
+			throw new IllegalArgumentException();
+		if(key == 0) {
+			V replacedValue = zeroKeyValue;
+			if(replacedValue == null)
+				numberOfEntries++;
+			zeroKeyValue = value;
+			return replacedValue;
+		}
+		int index = LinearProbing.find(keys, key, mask);
+		if(index >= 0) {
+			// update the existing entry
+			@SuppressWarnings("unchecked")
+			V replacedValue = (V) values[index];
+			values[index] = value;
+			return replacedValue;
+		}
+		index = ~index;
+		LinearProbing.checkRoomForEntry(numberOfEntries, tableSize, MAX_CAPACITY);
+		keys[index] = key;
+		values[index] = value;
+		numberOfEntries++;
+		// ensure hash table is large enough for another addition
+		if(isHashTableTooFull())
+			enlargeHashTable();
+		return null;
+	}
+
+	/**
+	 * Removes a specific entry from this dictionary.
+	 * @param key The search key of the entry to be removed.
+	 * @return Either the value associated with the search key or null if no such entry exists.
+	 */
+	public V remove(long key) {
+		if(key == 0) {
+			V removedValue = zeroKeyValue;
+			if(removedValue != null)
+				numberOfEntries--;
+			zeroKeyValue = null;
+			return removedValue;
+		}
+		int index = LinearProbing.find(keys, key, mask);
+		if(index < 0)
+			return null;
+		@SuppressWarnings("unchecked")
+		V removedValue = (V) values[index];
+		values[LinearProbing.deleteSlot(keys, values, index, mask)] = null;
+		numberOfEntries--;
+		return removedValue;
+	}
+
+	/**
+	 * Retrieves from this dictionary the value associated with a given search key.
+	 * @param key The search key of the desired entry.
+	 * @return Either the value that is associated with the search key or null if no such entry exists.
+	 */
+	public V getValue(long key) {
+		if(key == 0)
+			return zeroKeyValue;
+		int index = LinearProbing.find(keys, key, mask);
+		if(index < 0)
+			return null;
+		@SuppressWarnings("unchecked")
+		V result = (V) values[index];
+		return result;
+	}
+
+	/**
+	 * Sees whether a specific entry is in this dictionary.
+	 * @param key The search key of the desired entry.
+	 * @return True if the key is associated with an entry in the dictionary.
+	 */
+	public boolean contains(long key) {
+		if(key == 0)
+			return zeroKeyValue != null;
+		return LinearProbing.find(keys, key, mask) >= 0;
+	}
+
+	/**
+	 * Sees whether this dictionary is empty.
+	 * @return True if the dictionary is empty.
+	 */
+	public boolean isEmpty() {
+		return (numberOfEntries == 0);
+	}
+
+	/**
+	 * Gets the size of this dictionary.
+	 * @return The number of entries(key-value pairs) currently in the dictionary.
+	 */
+	public int getSize() {
+		return numberOfEntries;
+	}
+
+	/**
+	 * Removes all entries in this dictionary.
+	 */
+	public void clear() {
+		allocateTable(tableSize);
+		zeroKeyValue = null;
+		numberOfEntries = 0;
+	}
+
+	private void enlargeHashTable() {
+		if(tableSize == MAX_CAPACITY)
+			return;		// already at the largest table; keep probing at a higher load
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		tableSize = tableSize * 2;
+		allocateTable(tableSize);
+		LinearProbing.rehash(oldKeys, oldValues, keys, values, mask);
+	}
+
+	private void allocateTable(int size) {
+		keys = new long[size];
+		values = new Object[size];
+		mask = size - 1;
+	}
+
+	private boolean isHashTableTooFull() {
+		double loadFactor = (double)numberOfEntries / (double)tableSize;
+		if(loadFactor > MAX_LOAD_FACTOR)
+			return true;
+		return false;
+	}
+
+	private int getTableSizeFor(int num) {
+		if(num <= 2)
+			return 2;
+		if(num >= MAX_CAPACITY)
+			return MAX_CAPACITY;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+}
@@ -0,0 +1,468 @@
+package hashedDictionary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A hashed dictionary kept in a pair of memory-mapped files. Opening an existing file makes its
+ * entries available at once, with the operating system paging the table in as it is used.
+ * The index file holds a header and a linear-probing table of record addresses and key hashes.
+ * The data file next to it, named with ".data" added, holds the records. As in
+ * OffHeapHashedDictionary, keys and values are stored through Serializers, and two keys are equal
+ * when their serialized forms are equal.
+ *
+ * Crash consistency: changes are written through the mappings and reach the files whenever the
+ * operating system flushes them, in no particular order. force() writes every change so far to the
+ * storage device and then marks the index file clean. The first change after that marks the file
+ * dirty, and the mark reaches the device before the change is made. A file that was not forced or
+ * closed after its last change stays dirty, and opening it throws an IOException; it must then be
+ * rebuilt from its source. So a file that opens holds exactly the entries it had at its last
+ * force() or close(). A larger index or a compacted data file is written to a temporary file and
+ * renamed over the old one, and the directory is then synced so that the rename itself survives a
+ * crash.
+ *
+ * The index file is locked while it is open, so a second MappedHashedDictionary, in this process or
+ * another, cannot open it; its constructor throws an IOException instead.
+ *
+ * Errors writing the files while the dictionary changes are thrown as UncheckedIOException, and
+ * the dictionary cannot be used afterward.
+ *
+ * @param <K> Object type of the search key
+ * @param <V> Object type of the value associated with the key.
+ */
+public class MappedHashedDictionary<K, V> implements DictionaryInterface<K, V>, Closeable {
+
+	// the dictionary
+	private final RecordStore<K, V> store;						// the slots and records, mapped from the files
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final int MAX_CAPACITY = 1 << 30;
+	private static final int DEFAULT_DATA_CHUNK_SIZE = 1 << 24;
+
+	// the files
+	private final Path indexFile;
+	private final Path dataFile;
+	private FileChannel indexChannel;
+	private FileChannel dataChannel;
+	private boolean dirty;										// changed since the last force()
+	private boolean closed;
+	private final Path openFileKey;								// real path of indexFile, held in OPEN_FILES while open
+
+	// index files open in this process; a file lock cannot guard against the process holding it, since
+	// closing any channel on a file releases every lock the process has on that file
+	private static final Set<Path> OPEN_FILES = ConcurrentHashMap.newKeySet();
+
+	// the index file header
+	private static final int MAGIC = 0x48444d46;
+	private static final int VERSION = 1;
+	private static final int CLEAN = 0;
+	private static final int DIRTY = 1;
+	private static final int MAGIC_OFFSET = 0;
+	private static final int VERSION_OFFSET = 4;
+	private static final int STATE_OFFSET = 8;
+	private static final int TABLE_SIZE_OFFSET = 12;
+	private static final int SIZE_OFFSET = 16;
+	private static final int KEY_LENGTH_OFFSET = 20;			// fixed key length, or VARIABLE_LENGTH
+	private static final int VALUE_LENGTH_OFFSET = 24;			// fixed value length, or VARIABLE_LENGTH
+	private static final int DATA_CHUNK_SIZE_OFFSET = 28;
+	private static final int DATA_END_OFFSET = 32;
+	private static final int GARBAGE_OFFSET = 40;
+	private static final int HEADER_SIZE = 64;
+
+	// the hash table, after the header in the index file
+	private boolean integrityOK = false;
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+
+	public MappedHashedDictionary(Path file, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		this(file, DEFAULT_CAPACITY, keySerializer, valueSerializer);
+	}
+
+	public MappedHashedDictionary(Path file, int initialCapacity, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		this(file, initialCapacity, keySerializer, valueSerializer, DEFAULT_DATA_CHUNK_SIZE);
+	}
+
+	/**
+	 * Opens the dictionary stored in a file, or creates an empty one if the file does not exist.
+	 * @param file The index file.
+	 * @param initialCapacity The number of entries a new dictionary can hold before its table grows.
+	 * @param keySerializer Converts keys to and from bytes.
+	 * @param valueSerializer Converts values to and from bytes.
+	 * @param dataChunkSize For a new dictionary, size in bytes of each mapped block of the data file, a power of 2.
+	 *                      Also the largest record the dictionary can hold.
+	 * @throws IOException If the file cannot be read or created, is open in another dictionary, was not
+	 *                     closed cleanly, or was written with serializers of different fixed lengths.
+	 */
+	public MappedHashedDictionary(Path file, int initialCapacity, Serializer<K> keySerializer, Serializer<V> valueSerializer, int dataChunkSize) throws IOException {
+		initialCapacity = checkCapacity(initialCapacity);
+		if(file == null || keySerializer == null || valueSerializer == null)
+			throw new IllegalArgumentException();
+		if(dataChunkSize < 64 || dataChunkSize > MAX_CAPACITY || Integer.bitCount(dataChunkSize) != 1)
+			throw new IllegalArgumentException();
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		// key hashes are stored in the file, so they must not depend on the machine's byte order
+		store = new RecordStore<>(keySerializer, valueSerializer, ByteOrder.LITTLE_ENDIAN, HEADER_SIZE);
+		indexFile = file;
+		dataFile = file.resolveSibling(file.getFileName() + ".data");
+		openFileKey = file.toAbsolutePath().getParent().toRealPath().resolve(file.getFileName());
+		if(!OPEN_FILES.add(openFileKey))
+			throw new IOException(indexFile + " is open in another dictionary");
+		try {
+			if(Files.exists(indexFile))
+				openFiles();
+			else
+				createFiles(initialCapacity, dataChunkSize);
+		}
+		catch(IOException | RuntimeException e) {
+			OPEN_FILES.remove(openFileKey);
+			throw e;
+		}
+		integrityOK = true;
+	}
+
+	@Override
+	public V add(K key, V value) {
+		checkIntegrity();
+		if(key == null || value == null)
+			throw new IllegalArgumentException();
+		int slot = store.find(key);
+		try {
+			markDirty();
+			V replacedValue = store.putAt(slot, value);
+			if(replacedValue != null)
+				compactIfWasteful();
+			// ensure hash table is large enough for another addition
+			else if(store.needsLargerTable())
+				enlargeHashTable();
+			return replacedValue;
+		}
+		catch(IOException e) {
+			throw fail(e);
+		}
+		catch(UncheckedIOException e) {
+			throw fail(e.getCause());
+		}
+	}
+
+	@Override
+	public V remove(K key) {
+		checkIntegrity();
+		if(key == null)
+			return null;
+		int slot = store.find(key);
+		if(slot < 0)
+			return null;
+		try {
+			markDirty();
+			V removedValue = store.removeAt(slot);
+			compactIfWasteful();
+			return removedValue;
+		}
+		catch(IOException e) {
+			throw fail(e);
+		}
+		catch(UncheckedIOException e) {
+			throw fail(e.getCause());
+		}
+	}
+
+	@Override
+	public V getValue(K key) {
+		checkIntegrity();
+		if(key == null)
+			return null;
+		int slot = store.find(key);
+		if(slot < 0)
+			return null;
+		return store.getValueAt(slot);
+	}
+
+	@Override
+	public boolean contains(K key) {
+		checkIntegrity();
+		if(key == null)
+			return false;
+		return store.find(key) >= 0;
+	}
+
+	@Override
+	public Iterator<K> getKeyIterator() {
+		checkIntegrity();
+		return store.iterator(true, this::checkIntegrity);
+	}
+
+	@Override
+	public Iterator<V> getValueIterator() {
+		checkIntegrity();
+		return store.iterator(false, this::checkIntegrity);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (store.getSize() == 0);
+	}
+
+	@Override
+	public int getSize() {
+		return store.getSize();
+	}
+
+	@Override
+	public void clear() {
+		checkIntegrity();
+		try {
+			markDirty();
+			store.clear();
+			replaceIndex(store.getTableSize(), false);
+			int dataChunkSize = store.getData().getChunkSize();
+			store.getData().free();
+			dataChannel.truncate(0);
+			store.replaceData(new OffHeapBuffer(dataChunkSize, dataChannel), RecordStore.FIRST_RECORD);
+		}
+		catch(IOException e) {
+			throw fail(e);
+		}
+		catch(UncheckedIOException e) {
+			throw fail(e.getCause());
+		}
+	}
+
+	/**
+	 * Writes every change made to this dictionary to the storage device and marks its files clean,
+	 * so that they can be opened again even if the process or machine stops before close().
+	 * @throws IOException If the files cannot be written.
+	 */
+	public void force() throws IOException {
+		checkIntegrity();
+		if(!dirty)
+			return;
+		OffHeapBuffer index = store.getIndex();
+		store.getData().force();
+		dataChannel.force(true);
+		writeHeader(index, store.getTableSize(), DIRTY);
+		index.force();
+		indexChannel.force(true);
+		index.putInt(STATE_OFFSET, CLEAN);
+		index.force(0, HEADER_SIZE);
+		dirty = false;
+	}
+
+	/**
+	 * Forces any changes to the storage device and closes the files. The dictionary cannot be used afterward.
+	 * @throws IOException If the files cannot be written or closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(closed)
+			return;
+		closed = true;
+		try {
+			if(integrityOK)
+				force();		// a dictionary disabled by a failed write is left dirty
+		}
+		finally {
+			integrityOK = false;
+			store.getIndex().free();
+			store.getData().free();
+			indexChannel.close();
+			dataChannel.close();
+			OPEN_FILES.remove(openFileKey);
+		}
+	}
+
+	private void openFiles() throws IOException {
+		indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		OffHeapBuffer index = null;
+		try {
+			lockIndex(indexChannel);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while(header.hasRemaining()) {
+				if(indexChannel.read(header, header.position()) < 0)
+					break;
+			}
+			if(header.hasRemaining() || header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION)
+				throw new IOException(indexFile + " is not a dictionary file");
+			if(header.getInt(STATE_OFFSET) != CLEAN)
+				throw new IOException(indexFile + " was not closed cleanly and must be rebuilt");
+			if(header.getInt(KEY_LENGTH_OFFSET) != keySerializer.getFixedLength()
+					|| header.getInt(VALUE_LENGTH_OFFSET) != valueSerializer.getFixedLength())
+				throw new IOException(indexFile + " was written with different serializers");
+			int tableSize = header.getInt(TABLE_SIZE_OFFSET);
+			index = newIndex(tableSize, indexChannel);
+			OffHeapBuffer data = openData(header.getInt(DATA_CHUNK_SIZE_OFFSET));
+			store.attach(index, tableSize, header.getInt(SIZE_OFFSET), data, header.getLong(DATA_END_OFFSET), header.getLong(GARBAGE_OFFSET));
+		}
+		catch(IOException | RuntimeException e) {
+			if(index != null)
+				index.free();
+			indexChannel.close();		// releases the lock
+			throw e;
+		}
+		dirty = false;
+	}
+
+	private void createFiles(int initialCapacity, int dataChunkSize) throws IOException {
+		dirty = false;
+		dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		store.attach(null, 0, 0, new OffHeapBuffer(dataChunkSize, dataChannel), RecordStore.FIRST_RECORD, 0);		// replaceIndex() creates the index
+		// smallest power of 2 that holds initialCapacity entries without exceeding the load factor
+		replaceIndex(getTableSizeFor((int) Math.ceil(initialCapacity / MAX_LOAD_FACTOR)), false);
+	}
+
+	private OffHeapBuffer openData(int dataChunkSize) throws IOException {
+		dataChannel = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		OffHeapBuffer data = new OffHeapBuffer(dataChunkSize, dataChannel);
+		data.ensureCapacity(dataChannel.size());
+		return data;
+	}
+
+	// writes an index of newSize slots to a temporary file, holding the current entries if copyEntries,
+	// and renames it over the index file; the temporary file is locked first and stays open as the
+	// new index, so the index file is never unlocked
+	private void replaceIndex(int newSize, boolean copyEntries) throws IOException {
+		Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+		FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		OffHeapBuffer newIndex;
+		try {
+			lockIndex(tempChannel);
+			tempChannel.truncate(0);
+			newIndex = newIndex(newSize, tempChannel);
+			if(copyEntries)
+				store.copyIndexInto(newIndex, newSize);
+			writeHeader(newIndex, newSize, dirty ? DIRTY : CLEAN);
+			newIndex.force();
+		}
+		catch(IOException | RuntimeException e) {
+			tempChannel.close();
+			throw e;
+		}
+		if(store.getIndex() != null) {
+			store.getIndex().free();
+			indexChannel.close();
+		}
+		Files.move(tempFile, indexFile, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory();
+		indexChannel = tempChannel;
+		store.replaceIndex(newIndex, newSize);
+	}
+
+	// locks an index file for this dictionary until its channel is closed
+	private void lockIndex(FileChannel channel) throws IOException {
+		FileLock lock;
+		try {
+			lock = channel.tryLock();
+		}
+		catch(OverlappingFileLockException e) {
+			lock = null;		// held by another dictionary in this process
+		}
+		if(lock == null)
+			throw new IOException(indexFile + " is open in another dictionary");
+	}
+
+	// writes the directory holding the files to the storage device, so that a rename within it
+	// survives a crash; Windows cannot open a directory, and there this step is skipped
+	private void syncDirectory() throws IOException {
+		try(FileChannel directory = FileChannel.open(indexFile.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+			directory.force(true);
+		}
+		catch(IOException e) {
+			if(!System.getProperty("os.name").startsWith("Windows"))
+				throw e;
+		}
+	}
+
+	private void writeHeader(OffHeapBuffer target, int size, int state) {
+		target.putInt(MAGIC_OFFSET, MAGIC);
+		target.putInt(VERSION_OFFSET, VERSION);
+		target.putInt(STATE_OFFSET, state);
+		target.putInt(TABLE_SIZE_OFFSET, size);
+		target.putInt(SIZE_OFFSET, store.getSize());
+		target.putInt(KEY_LENGTH_OFFSET, keySerializer.getFixedLength());
+		target.putInt(VALUE_LENGTH_OFFSET, valueSerializer.getFixedLength());
+		target.putInt(DATA_CHUNK_SIZE_OFFSET, store.getData().getChunkSize());
+		target.putLong(DATA_END_OFFSET, store.getDataEnd());
+		target.putLong(GARBAGE_OFFSET, store.getGarbageBytes());
+	}
+
+	// marks the index file dirty on the storage device before the first change since the last force()
+	private void markDirty() {
+		if(dirty)
+			return;
+		store.getIndex().putInt(STATE_OFFSET, DIRTY);
+		store.getIndex().force(0, HEADER_SIZE);
+		dirty = true;
+	}
+
+	// disables the dictionary after a failed write, whose changes may be incomplete
+	private UncheckedIOException fail(IOException e) {
+		integrityOK = false;
+		return new UncheckedIOException(e);
+	}
+
+	// copies the live records into a new data file once garbage outweighs them
+	private void compactIfWasteful() throws IOException {
+		if(!store.isWasteful())
+			return;
+		Path tempFile = dataFile.resolveSibling(dataFile.getFileName() + ".tmp");
+		int dataChunkSize = store.getData().getChunkSize();
+		long newEnd;
+		try(FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			OffHeapBuffer newData = new OffHeapBuffer(dataChunkSize, tempChannel);
+			newEnd = store.compactInto(newData);
+			newData.force();
+			newData.free();
+		}
+		store.getData().free();
+		dataChannel.close();
+		Files.move(tempFile, dataFile, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory();
+		store.replaceData(openData(dataChunkSize), newEnd);
+	}
+
+	private void enlargeHashTable() throws IOException {
+		replaceIndex(store.getTableSize() * 2, true);
+	}
+
+	private OffHeapBuffer newIndex(int size, FileChannel channel) {
+		long bytes = store.getIndexBytes(size);
+		OffHeapBuffer newIndex = new OffHeapBuffer((int) Math.min(Long.highestOneBit(bytes - 1) << 1, MAX_CAPACITY), channel);
+		newIndex.ensureCapacity(bytes);
+		return newIndex;
+	}
+
+	private void checkIntegrity() {
+		if(!integrityOK)
+			throw new IllegalStateException();
+	}
+
+	private int getTableSizeFor(int num) {
+		if(num <= 2)
+			return 2;
+		if(num >= MAX_CAPACITY)
+			return MAX_CAPACITY;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+}
@@ -0,0 +1,210 @@
+package hashedDictionary;
+
+/**
+ * A hashed dictionary from object keys to int values, for tables such as word counts where boxing
+ * every value would cost more than the table itself. Keys are stored in an Object[] and values in a
+ * flat int[], with linear probing and backward-shift removal.
+ *
+ * Since an int value cannot be null, the methods that would return null in DictionaryInterface
+ * return a missing value chosen at construction (0 by default) instead. When that value can also be
+ * stored, use contains() to tell the two apart.
+ *
+ * @param <K> Object type of the search key
+ */
+public class ObjectIntHashedDictionary<K> {
+
+	// the dictionary
+	private int numberOfEntries;
+	private final int missingValue;								// returned in place of null
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	// the hash table
+	private Object[] keys;										// null marks an empty slot
+	private int[] values;										// values[i] belongs to keys[i]
+	private int tableSize;										// must be a power of 2
+	private int mask;											// tableSize - 1
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+
+	public ObjectIntHashedDictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ObjectIntHashedDictionary(int initialCapacity) {
+		this(initialCapacity, 0);
+	}
+
+	public ObjectIntHashedDictionary(int initialCapacity, int missingValue) {
+		initialCapacity = checkCapacity(initialCapacity);
+		this.missingValue = missingValue;
+		numberOfEntries = 0;
+
+		// smallest power of 2 that holds initialCapacity entries without exceeding the load factor
+		tableSize = getTableSizeFor((int) Math.ceil(initialCapacity / MAX_LOAD_FACTOR));
+		allocateTable(tableSize);
+	}
+
+	/**
+	 * Adds a new entry to this dictionary. If the given search key already exists in the dictionary, replaces the corresponding value.
+	 * @param key An object search key of the new entry.
+	 * @param value The value associated with the search key.
+	 * @return Either the missing value if the new entry was added to the dictionary or the value that was associated with key if that value was replaced.
+	 */
+	public int add(K key, int value) {
+		if(key == null)
+			throw new IllegalArgumentException();
+		int index = LinearProbing.find(keys, key, mask);
+		if(index >= 0) {
+			// update the existing entry
+			int replacedValue = values[index];
+			values[index] = value;
+			return replacedValue;
+		}
+		index = ~index;
+		insertAt(index, key, value);
+		return missingValue;
+	}
+
+	/**
+	 * Adds delta to the value associated with a given search key, with a single probe of the table.
+	 * A key that is not yet in the dictionary is added with a value of delta, as if it had been 0.
+	 * @param key An object search key.
+	 * @param delta The amount to add to the key's value.
+	 * @return The value now associated with the search key.
+	 */
+	public int addTo(K key, int delta) {
+		if(key == null)
+			throw new IllegalArgumentException();
+		int index = LinearProbing.find(keys, key, mask);
+		if(index >= 0) {
+			values[index] += delta;
+			return values[index];
+		}
+		insertAt(~index, key, delta);
+		return delta;
+	}
+
+	/**
+	 * Removes a specific entry from this dictionary.
+	 * @param key An object search key of the entry to be removed.
+	 * @return Either the value associated with the search key or the missing value if no such entry exists.
+	 */
+	public int remove(K key) {
+		int index = locate(key);
+		if(index < 0)
+			return missingValue;
+		int removedValue = values[index];
+		LinearProbing.deleteSlot(keys, values, index, mask);
+		numberOfEntries--;
+		return removedValue;
+	}
+
+	/**
+	 * Retrieves from this dictionary the value associated with a given search key.
+	 * @param key An object search key of the entry to be retrieved.
+	 * @return Either the value that is associated with the search key or the missing value if no such entry exists.
+	 */
+	public int getValue(K key) {
+		int index = locate(key);
+		if(index < 0)
+			return missingValue;
+		return values[index];
+	}
+
+	/**
+	 * Sees whether a specific entry is in this dictionary.
+	 * @param key An object search key of the desired entry.
+	 * @return True if the key is associated with an entry in the dictionary.
+	 */
+	public boolean contains(K key) {
+		return locate(key) >= 0;
+	}
+
+	/**
+	 * Gets the value that stands for "no entry" in the results of add, remove and getValue.
+	 * @return The missing value given at construction.
+	 */
+	public int getMissingValue() {
+		return missingValue;
+	}
+
+	/**
+	 * Sees whether this dictionary is empty.
+	 * @return True if the dictionary is empty.
+	 */
+	public boolean isEmpty() {
+		return (numberOfEntries == 0);
+	}
+
+	/**
+	 * Gets the size of this dictionary.
+	 * @return The number of entries(key-value pairs) currently in the dictionary.
+	 */
+	public int getSize() {
+		return numberOfEntries;
+	}
+
+	/**
+	 * Removes all entries in this dictionary.
+	 */
+	public void clear() {
+		allocateTable(tableSize);
+		numberOfEntries = 0;
+	}
+
+	// stores a new entry in the empty slot that ended its probe
+	private void insertAt(int index, K key, int value) {
+		LinearProbing.checkRoomForEntry(numberOfEntries, tableSize, MAX_CAPACITY);
+		keys[index] = key;
+		values[index] = value;
+		numberOfEntries++;
+		// ensure hash table is large enough for another addition
+		if(isHashTableTooFull())
+			enlargeHashTable();
+	}
+
+	// returns the slot holding key, or a negative number if key is not in the table
+	private int locate(K key) {
+		if(key == null)
+			return -1;
+		return LinearProbing.find(keys, key, mask);
+	}
+
+	private void enlargeHashTable() {
+		if(tableSize == MAX_CAPACITY)
+			return;		// already at the largest table; keep probing at a higher load
+		Object[] oldKeys = keys;
+		int[] oldValues = values;
+		tableSize = tableSize * 2;
+		allocateTable(tableSize);
+		LinearProbing.rehash(oldKeys, oldValues, keys, values, mask);
+	}
+
+	private void allocateTable(int size) {
+		keys = new Object[size];
+		values = new int[size];
+		mask = size - 1;
+	}
+
+	private boolean isHashTableTooFull() {
+		double loadFactor = (double)numberOfEntries / (double)tableSize;
+		if(loadFactor > MAX_LOAD_FACTOR)
+			return true;
+		return false;
+	}
+
+	private int getTableSizeFor(int num) {
+		if(num <= 2)
+			return 2;
+		if(num >= MAX_CAPACITY)
+			return MAX_CAPACITY;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+}
@@ -0,0 +1,148 @@
+package hashedDictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Native memory addressed by a long offset, made of direct ByteBuffers of one power-of-2 chunk size.
+ * A single ByteBuffer cannot exceed 2 GB, so larger regions are split into chunks. Callers keep
+ * every multi-byte value and every record they read through chunkFor() inside one chunk.
+ * The chunks are either direct buffers or mappings of consecutive regions of a file; a file is
+ * little-endian so that it can move between machines.
+ */
+final class OffHeapBuffer {
+
+	private final int chunkSize;
+	private final int chunkShift;
+	private final FileChannel channel;							// null for direct buffers
+	private ByteBuffer[] chunks = new ByteBuffer[0];
+
+	// sun.misc.Unsafe.invokeCleaner(), the only way in Java 17 to release a direct buffer before it is garbage collected
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		}
+		catch(ReflectiveOperationException | RuntimeException e) {
+			// not available; freed chunks are released when they are collected
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	OffHeapBuffer(int chunkSize) {
+		this(chunkSize, null);
+	}
+
+	// maps chunks from channel, which must be open for reading and writing; the file grows as chunks are added
+	OffHeapBuffer(int chunkSize, FileChannel channel) {
+		if(chunkSize <= 0 || Integer.bitCount(chunkSize) != 1)
+			throw new IllegalArgumentException();
+		this.chunkSize = chunkSize;
+		chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+		this.channel = channel;
+	}
+
+	int getChunkSize() {
+		return chunkSize;
+	}
+
+	long getCapacity() {
+		return (long) chunks.length << chunkShift;
+	}
+
+	// allocates chunks until the first size bytes exist; new memory is zeroed
+	void ensureCapacity(long size) {
+		int chunkCount = (int) ((size + chunkSize - 1) >>> chunkShift);
+		if(chunkCount <= chunks.length)
+			return;
+		ByteBuffer[] newChunks = new ByteBuffer[chunkCount];
+		System.arraycopy(chunks, 0, newChunks, 0, chunks.length);
+		for(int i = chunks.length; i < chunkCount; i++)
+			newChunks[i] = allocateChunk(i);
+		chunks = newChunks;
+	}
+
+	private ByteBuffer allocateChunk(int chunkIndex) {
+		if(channel == null)
+			return ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.nativeOrder());
+		try {
+			return channel.map(FileChannel.MapMode.READ_WRITE, (long) chunkIndex << chunkShift, chunkSize).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	ByteBuffer chunkFor(long address) {
+		return chunks[(int) (address >>> chunkShift)];
+	}
+
+	int offsetOf(long address) {
+		return (int) address & (chunkSize - 1);
+	}
+
+	int getInt(long address) {
+		return chunkFor(address).getInt(offsetOf(address));
+	}
+
+	void putInt(long address, int value) {
+		chunkFor(address).putInt(offsetOf(address), value);
+	}
+
+	long getLong(long address) {
+		return chunkFor(address).getLong(offsetOf(address));
+	}
+
+	void putLong(long address, long value) {
+		chunkFor(address).putLong(offsetOf(address), value);
+	}
+
+	// writes every chunk of a mapped file to the storage device
+	void force() {
+		if(channel == null)
+			return;
+		for(ByteBuffer chunk : chunks)
+			((MappedByteBuffer) chunk).force();
+	}
+
+	// writes length bytes from address of a mapped file to the storage device
+	void force(long address, int length) {
+		if(channel == null)
+			return;
+		((MappedByteBuffer) chunkFor(address)).force(offsetOf(address), length);
+	}
+
+	// releases the native memory or unmaps the file; the buffer must not be used afterward
+	void free() {
+		ByteBuffer[] freed = chunks;
+		chunks = new ByteBuffer[0];
+		if(INVOKE_CLEANER == null)
+			return;
+		for(ByteBuffer chunk : freed) {
+			try {
+				INVOKE_CLEANER.invoke(UNSAFE, chunk);
+			}
+			catch(ReflectiveOperationException e) {
+				return;		// leave the rest to the garbage collector
+			}
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+package hashedDictionary;
+
+import java.nio.ByteOrder;
+import java.util.Iterator;
+
+/**
+ * A hashed dictionary whose table and entries live in native memory outside the Java heap, so the
+ * garbage collector sees a handful of objects however many entries there are.
+ * Keys and values are converted to bytes by Serializers, and two keys are equal when their
+ * serialized forms are equal. Keys and values are deserialized again each time they are read.
+ *
+ * The hash table is an array of slots that each hold a record address and the key's hash, probed
+ * linearly. Records are appended to a separate data region. A removed or replaced record becomes
+ * garbage, and the data region is compacted once garbage outweighs live records. Compaction needs
+ * room for both copies while it runs.
+ *
+ * The native memory is released by close(), after which the dictionary cannot be used.
+ *
+ * @param <K> Object type of the search key
+ * @param <V> Object type of the value associated with the key.
+ */
+public class OffHeapHashedDictionary<K, V> implements DictionaryInterface<K, V>, AutoCloseable {
+
+	// the dictionary
+	private final RecordStore<K, V> store;						// the slots and records, in native memory
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final int MAX_CAPACITY = 1 << 30;
+	private static final int DEFAULT_DATA_CHUNK_SIZE = 1 << 24;
+
+	// the hash table
+	private boolean integrityOK = false;
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+
+	public OffHeapHashedDictionary(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		this(DEFAULT_CAPACITY, keySerializer, valueSerializer);
+	}
+
+	public OffHeapHashedDictionary(int initialCapacity, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		this(initialCapacity, keySerializer, valueSerializer, DEFAULT_DATA_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates an empty dictionary.
+	 * @param initialCapacity The number of entries the dictionary can hold before its table grows.
+	 * @param keySerializer Converts keys to and from bytes.
+	 * @param valueSerializer Converts values to and from bytes.
+	 * @param dataChunkSize Size in bytes of each block of native memory records are stored in, a power of 2.
+	 *                      Also the largest record the dictionary can hold.
+	 */
+	public OffHeapHashedDictionary(int initialCapacity, Serializer<K> keySerializer, Serializer<V> valueSerializer, int dataChunkSize) {
+		initialCapacity = checkCapacity(initialCapacity);
+		if(keySerializer == null || valueSerializer == null)
+			throw new IllegalArgumentException();
+		if(dataChunkSize < 64 || dataChunkSize > MAX_CAPACITY || Integer.bitCount(dataChunkSize) != 1)
+			throw new IllegalArgumentException();
+		store = new RecordStore<>(keySerializer, valueSerializer, ByteOrder.nativeOrder(), 0);
+
+		// smallest power of 2 that holds initialCapacity entries without exceeding the load factor
+		int tableSize = getTableSizeFor((int) Math.ceil(initialCapacity / MAX_LOAD_FACTOR));
+		store.attach(newIndex(tableSize), tableSize, 0, new OffHeapBuffer(dataChunkSize), RecordStore.FIRST_RECORD, 0);
+		integrityOK = true;
+	}
+
+	@Override
+	public V add(K key, V value) {
+		checkIntegrity();
+		if(key == null || value == null)
+			throw new IllegalArgumentException();
+		V replacedValue = store.putAt(store.find(key), value);
+		if(replacedValue != null)
+			compactIfWasteful();
+		// ensure hash table is large enough for another addition
+		else if(store.needsLargerTable())
+			enlargeHashTable();
+		return replacedValue;
+	}
+
+	@Override
+	public V remove(K key) {
+		checkIntegrity();
+		if(key == null)
+			return null;
+		int slot = store.find(key);
+		if(slot < 0)
+			return null;
+		V removedValue = store.removeAt(slot);
+		compactIfWasteful();
+		return removedValue;
+	}
+
+	@Override
+	public V getValue(K key) {
+		checkIntegrity();
+		if(key == null)
+			return null;
+		int slot = store.find(key);
+		if(slot < 0)
+			return null;
+		return store.getValueAt(slot);
+	}
+
+	@Override
+	public boolean contains(K key) {
+		checkIntegrity();
+		if(key == null)
+			return false;
+		return store.find(key) >= 0;
+	}
+
+	@Override
+	public Iterator<K> getKeyIterator() {
+		checkIntegrity();
+		return store.iterator(true, this::checkIntegrity);
+	}
+
+	@Override
+	public Iterator<V> getValueIterator() {
+		checkIntegrity();
+		return store.iterator(false, this::checkIntegrity);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (getSize() == 0);
+	}
+
+	@Override
+	public int getSize() {
+		return integrityOK ? store.getSize() : 0;
+	}
+
+	@Override
+	public void clear() {
+		checkIntegrity();
+		store.clear();
+		store.replaceIndex(newIndex(store.getTableSize()), store.getTableSize()).free();
+		store.replaceData(new OffHeapBuffer(store.getData().getChunkSize()), RecordStore.FIRST_RECORD).free();
+	}
+
+	/**
+	 * Releases the native memory held by this dictionary. The dictionary cannot be used afterward.
+	 */
+	@Override
+	public void close() {
+		if(!integrityOK)
+			return;
+		integrityOK = false;
+		store.getIndex().free();
+		store.getData().free();
+	}
+
+	// copies the live records into fresh memory once garbage outweighs them
+	private void compactIfWasteful() {
+		if(!store.isWasteful())
+			return;
+		OffHeapBuffer newData = new OffHeapBuffer(store.getData().getChunkSize());
+		long newEnd = store.compactInto(newData);
+		store.replaceData(newData, newEnd).free();
+	}
+
+	private void enlargeHashTable() {
+		int newSize = store.getTableSize() * 2;
+		OffHeapBuffer newIndex = newIndex(newSize);
+		store.copyIndexInto(newIndex, newSize);
+		store.replaceIndex(newIndex, newSize).free();
+	}
+
+	private OffHeapBuffer newIndex(int size) {
+		long bytes = store.getIndexBytes(size);
+		OffHeapBuffer newIndex = new OffHeapBuffer((int) Math.min(bytes, MAX_CAPACITY));
+		newIndex.ensureCapacity(bytes);
+		return newIndex;
+	}
+
+	private void checkIntegrity() {
+		if(!integrityOK)
+			throw new IllegalStateException();
+	}
+
+	private int getTableSizeFor(int num) {
+		if(num <= 2)
+			return 2;
+		if(num >= MAX_CAPACITY)
+			return MAX_CAPACITY;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+}
@@ -0,0 +1,408 @@
+package hashedDictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The hash table and records of a dictionary kept in OffHeapBuffers, shared by
+ * OffHeapHashedDictionary and MappedHashedDictionary. The dictionaries create the buffers, in
+ * native memory or mapped from files, and hand new ones in when the table grows or the records are
+ * compacted.
+ *
+ * The index is a linear-probing table of slots, starting indexBase bytes into its buffer, that each
+ * hold a record address and the key's hash. Records are appended to the data buffer as
+ * [key length][value length][key][value], the lengths only for variable-length serializers. Two keys
+ * are equal when their serialized forms are equal. A removed or replaced record becomes garbage
+ * until the dictionary compacts the records with compactInto().
+ *
+ * find() serializes the key into a buffer that the following putAt() reuses, so the two are called
+ * as a pair.
+ *
+ * @param <K> Object type of the search key
+ * @param <V> Object type of the value associated with the key.
+ */
+final class RecordStore<K, V> {
+
+	static final int SLOT_SIZE = 16;							// record address (long), key hash (int), unused (int)
+	static final long FIRST_RECORD = Long.BYTES;				// address 0 stands for an empty slot
+	private static final long EMPTY = 0;						// record address of an empty slot
+	private static final int MAX_CAPACITY = 1 << 30;
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+
+	// the keys and values
+	private final Serializer<K> keySerializer;
+	private final Serializer<V> valueSerializer;
+	private final int headerSize;								// bytes of lengths before the key of a record
+	private final ByteOrder keyOrder;							// order the key's bytes are read in to hash them
+	private ByteBuffer keyBuffer;								// serialized form of the key being looked up
+	private int keyLength;
+	private int keyHash;
+
+	// the hash table
+	private OffHeapBuffer index;
+	private final long indexBase;								// where slot 0 starts in index
+	private int tableSize;										// must be a power of 2
+	private int mask;											// tableSize - 1
+	private int numberOfEntries;
+
+	// the records
+	private OffHeapBuffer data;
+	private long dataEnd;										// where the next record is appended
+	private long garbageBytes;									// size of the removed and replaced records
+
+	RecordStore(Serializer<K> keySerializer, Serializer<V> valueSerializer, ByteOrder keyOrder, long indexBase) {
+		this.keySerializer = keySerializer;
+		this.valueSerializer = valueSerializer;
+		this.keyOrder = keyOrder;
+		this.indexBase = indexBase;
+		headerSize = (keySerializer.getFixedLength() < 0 ? 4 : 0) + (valueSerializer.getFixedLength() < 0 ? 4 : 0);
+		keyBuffer = ByteBuffer.allocate(64).order(keyOrder);
+	}
+
+	// takes over an index of tableSize slots and the records it points to
+	void attach(OffHeapBuffer index, int tableSize, int numberOfEntries, OffHeapBuffer data, long dataEnd, long garbageBytes) {
+		this.index = index;
+		this.tableSize = tableSize;
+		mask = tableSize - 1;
+		this.numberOfEntries = numberOfEntries;
+		this.data = data;
+		this.dataEnd = dataEnd;
+		this.garbageBytes = garbageBytes;
+	}
+
+	OffHeapBuffer getIndex() {
+		return index;
+	}
+
+	OffHeapBuffer getData() {
+		return data;
+	}
+
+	int getTableSize() {
+		return tableSize;
+	}
+
+	int getSize() {
+		return numberOfEntries;
+	}
+
+	long getDataEnd() {
+		return dataEnd;
+	}
+
+	long getGarbageBytes() {
+		return garbageBytes;
+	}
+
+	// the number of bytes an index of size slots takes
+	long getIndexBytes(int size) {
+		return indexBase + (long) size * SLOT_SIZE;
+	}
+
+	// returns the slot holding key, or the complement (~) of the empty slot where it belongs
+	int find(K key) {
+		keyHash = serializeKey(key);
+		int slot = keyHash & mask;
+		while(true) {
+			long slotAddress = getSlotAddress(slot);
+			long address = index.getLong(slotAddress);
+			if(address == EMPTY)
+				return ~slot;
+			if(index.getInt(slotAddress + Long.BYTES) == keyHash && keyMatches(address))
+				return slot;
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	V getValueAt(int slot) {
+		return readValue(getRecordAddress(slot));
+	}
+
+	// stores value for the key of the last find(), which returned slot; returns the value replaced, or null
+	V putAt(int slot, V value) {
+		int valueLength = valueSerializer.getLength(value);
+		if(slot >= 0) {
+			// update the existing entry, in place if the new value is the same length
+			long address = getRecordAddress(slot);
+			V replacedValue = readValue(address);
+			if(getValueLength(address) == valueLength)
+				writeValue(getValueAddress(address), value, valueLength);
+			else {
+				long newAddress = appendRecord(value, valueLength);
+				garbageBytes += getRecordSize(address);
+				index.putLong(getSlotAddress(slot), newAddress);
+			}
+			return replacedValue;
+		}
+		LinearProbing.checkRoomForEntry(numberOfEntries, tableSize, MAX_CAPACITY);
+		slot = ~slot;
+		index.putLong(getSlotAddress(slot), appendRecord(value, valueLength));
+		index.putInt(getSlotAddress(slot) + Long.BYTES, keyHash);
+		numberOfEntries++;
+		return null;
+	}
+
+	// removes the entry in slot, returning its value
+	V removeAt(int slot) {
+		long address = getRecordAddress(slot);
+		V removedValue = readValue(address);
+		garbageBytes += getRecordSize(address);
+		deleteSlot(slot);
+		numberOfEntries--;
+		return removedValue;
+	}
+
+	// forgets every entry; the dictionary then hands in an empty index and empty data
+	void clear() {
+		numberOfEntries = 0;
+		dataEnd = FIRST_RECORD;
+		garbageBytes = 0;
+	}
+
+	// sees whether the table is over the load factor and can still grow
+	boolean needsLargerTable() {
+		double loadFactor = (double)numberOfEntries / (double)tableSize;
+		return loadFactor > MAX_LOAD_FACTOR && tableSize < MAX_CAPACITY;
+	}
+
+	// sees whether garbage outweighs the live records
+	boolean isWasteful() {
+		return garbageBytes > dataEnd / 2 && dataEnd > data.getChunkSize();
+	}
+
+	// copies the slots into the empty newIndex of newSize slots
+	void copyIndexInto(OffHeapBuffer newIndex, int newSize) {
+		int newMask = newSize - 1;
+		for(int i = 0; i < tableSize; i++) {
+			long address = getRecordAddress(i);
+			if(address != EMPTY) {
+				int hash = index.getInt(getSlotAddress(i) + Long.BYTES);
+				int slot = hash & newMask;
+				while(newIndex.getLong(getSlotAddress(slot)) != EMPTY)
+					slot = (slot + 1) & newMask;
+				newIndex.putLong(getSlotAddress(slot), address);
+				newIndex.putInt(getSlotAddress(slot) + Long.BYTES, hash);
+			}
+		}
+	}
+
+	// uses newIndex of newSize slots from now on, returning the old index
+	OffHeapBuffer replaceIndex(OffHeapBuffer newIndex, int newSize) {
+		OffHeapBuffer oldIndex = index;
+		index = newIndex;
+		tableSize = newSize;
+		mask = newSize - 1;
+		return oldIndex;
+	}
+
+	// copies the live records into the empty newData and points the slots at the copies;
+	// returns where the next record would go in newData
+	long compactInto(OffHeapBuffer newData) {
+		long newEnd = FIRST_RECORD;
+		for(int slot = 0; slot < tableSize; slot++) {
+			long address = getRecordAddress(slot);
+			if(address != EMPTY) {
+				int size = getRecordSize(address);
+				long newAddress = reserveRecord(newData, newEnd, size);
+				newData.chunkFor(newAddress).put(newData.offsetOf(newAddress), data.chunkFor(address), data.offsetOf(address), size);
+				index.putLong(getSlotAddress(slot), newAddress);
+				newEnd = newAddress + size;
+			}
+		}
+		return newEnd;
+	}
+
+	// uses newData, holding records up to newEnd and no garbage, from now on; returns the old data
+	OffHeapBuffer replaceData(OffHeapBuffer newData, long newEnd) {
+		OffHeapBuffer oldData = data;
+		data = newData;
+		dataEnd = newEnd;
+		garbageBytes = 0;
+		return oldData;
+	}
+
+	// walks the occupied slots, deserializing the key or value of each record; checkIntegrity is the
+	// dictionary's, run before each record is read
+	<T> Iterator<T> iterator(boolean keys, Runnable checkIntegrity) {
+		return new RecordIterator<>(keys, checkIntegrity);
+	}
+
+	// serializes key into keyBuffer and returns the hash of its bytes
+	private int serializeKey(K key) {
+		int length = keySerializer.getLength(key);
+		if(length > keyBuffer.capacity())
+			keyBuffer = ByteBuffer.allocate(Math.max(length, 2 * keyBuffer.capacity())).order(keyOrder);
+		keyBuffer.clear();
+		keySerializer.write(key, keyBuffer);
+		if(keyBuffer.position() != length)
+			throw new IllegalStateException("key serializer wrote " + keyBuffer.position() + " bytes, expected " + length);
+		keyLength = length;
+
+		long hash = length * 0x9E3779B97F4A7C15L;
+		int i = 0;
+		for(; i + Long.BYTES <= length; i += Long.BYTES)
+			hash = (hash ^ mix(keyBuffer.getLong(i))) * 0x9E3779B97F4A7C15L;
+		long last = 0;
+		for(; i < length; i++)
+			last = (last << 8) | (keyBuffer.get(i) & 0xFF);
+		hash = mix(hash ^ last);
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	// Murmur3's 64-bit finalizer
+	private static long mix(long h) {
+		h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+		h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return h ^ (h >>> 33);
+	}
+
+	// sees whether the record at address has the key in keyBuffer
+	private boolean keyMatches(long address) {
+		if(getKeyLength(address) != keyLength)
+			return false;
+		ByteBuffer chunk = data.chunkFor(address);
+		int offset = data.offsetOf(address) + headerSize;
+		int i = 0;
+		for(; i + Long.BYTES <= keyLength; i += Long.BYTES) {
+			if(chunk.getLong(offset + i) != keyBuffer.getLong(i))
+				return false;
+		}
+		for(; i < keyLength; i++) {
+			if(chunk.get(offset + i) != keyBuffer.get(i))
+				return false;
+		}
+		return true;
+	}
+
+	// empties a slot with Algorithm R, as described in LinearProbing
+	private void deleteSlot(int hole) {
+		int slot = (hole + 1) & mask;
+		while(getRecordAddress(slot) != EMPTY) {
+			int home = index.getInt(getSlotAddress(slot) + Long.BYTES) & mask;
+			if(LinearProbing.isOutsideRun(home, hole, slot, mask)) {
+				index.putLong(getSlotAddress(hole), getRecordAddress(slot));
+				index.putInt(getSlotAddress(hole) + Long.BYTES, index.getInt(getSlotAddress(slot) + Long.BYTES));
+				hole = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		index.putLong(getSlotAddress(hole), EMPTY);
+	}
+
+	// appends a record of the key in keyBuffer and value, returning its address
+	private long appendRecord(V value, int valueLength) {
+		long size = (long) headerSize + keyLength + valueLength;
+		if(size > data.getChunkSize())
+			throw new IllegalArgumentException("entry of " + size + " bytes exceeds the data chunk size");
+		long address = reserveRecord(data, dataEnd, (int) size);
+		ByteBuffer chunk = data.chunkFor(address);
+		int offset = data.offsetOf(address);
+		if(keySerializer.getFixedLength() < 0) {
+			chunk.putInt(offset, keyLength);
+			offset += 4;
+		}
+		if(valueSerializer.getFixedLength() < 0) {
+			chunk.putInt(offset, valueLength);
+			offset += 4;
+		}
+		chunk.put(offset, keyBuffer, 0, keyLength);
+		writeValue(address + headerSize + keyLength, value, valueLength);
+		dataEnd = address + size;
+		return address;
+	}
+
+	// returns where a record of size bytes starts if placed at end, moving it to the next chunk if it would cross one
+	private static long reserveRecord(OffHeapBuffer buffer, long end, int size) {
+		if(buffer.offsetOf(end) + (long) size > buffer.getChunkSize())
+			end += buffer.getChunkSize() - buffer.offsetOf(end);
+		buffer.ensureCapacity(end + size);
+		return end;
+	}
+
+	private void writeValue(long valueAddress, V value, int valueLength) {
+		ByteBuffer chunk = data.chunkFor(valueAddress);
+		int offset = data.offsetOf(valueAddress);
+		chunk.position(offset);
+		valueSerializer.write(value, chunk);
+		if(chunk.position() - offset != valueLength)
+			throw new IllegalStateException("value serializer wrote " + (chunk.position() - offset) + " bytes, expected " + valueLength);
+	}
+
+	private K readKey(long address) {
+		ByteBuffer chunk = data.chunkFor(address);
+		chunk.position(data.offsetOf(address) + headerSize);
+		return keySerializer.read(chunk, getKeyLength(address));
+	}
+
+	private V readValue(long address) {
+		ByteBuffer chunk = data.chunkFor(address);
+		chunk.position(data.offsetOf(getValueAddress(address)));
+		return valueSerializer.read(chunk, getValueLength(address));
+	}
+
+	private int getKeyLength(long address) {
+		int fixedLength = keySerializer.getFixedLength();
+		return fixedLength >= 0 ? fixedLength : data.getInt(address);
+	}
+
+	private int getValueLength(long address) {
+		int fixedLength = valueSerializer.getFixedLength();
+		if(fixedLength >= 0)
+			return fixedLength;
+		return data.getInt(address + (keySerializer.getFixedLength() < 0 ? 4 : 0));
+	}
+
+	private long getValueAddress(long address) {
+		return address + headerSize + getKeyLength(address);
+	}
+
+	private int getRecordSize(long address) {
+		return headerSize + getKeyLength(address) + getValueLength(address);
+	}
+
+	private long getRecordAddress(int slot) {
+		return index.getLong(getSlotAddress(slot));
+	}
+
+	private long getSlotAddress(int slot) {
+		return indexBase + (long) slot * SLOT_SIZE;
+	}
+
+	private class RecordIterator<T> implements Iterator<T> {
+		private final boolean keys;
+		private final Runnable checkIntegrity;
+		private int nextSlot;
+
+		RecordIterator(boolean keys, Runnable checkIntegrity) {
+			this.keys = keys;
+			this.checkIntegrity = checkIntegrity;
+			nextSlot = advance(0);
+		}
+
+		private int advance(int from) {
+			while(from < tableSize && getRecordAddress(from) == EMPTY)
+				from++;
+			return from;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextSlot < tableSize;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			checkIntegrity.run();
+			long address = getRecordAddress(nextSlot);
+			@SuppressWarnings("unchecked")
+			T result = (T) (keys ? readKey(address) : readValue(address));
+			nextSlot = advance(nextSlot + 1);
+			return result;
+		}
+	}
+
+}
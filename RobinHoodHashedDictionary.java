@@ -0,0 +1,273 @@
+package hashedDictionary;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hashed dictionary that resolves collisions with Robin Hood linear probing.
+ * On insertion an entry that is further from its home slot takes the place of one that is closer,
+ * which keeps probe lengths close to the average instead of letting a few runs grow long.
+ * Because probe lengths along a run never drop by more than one, an unsuccessful search can stop as
+ * soon as it meets an entry that is closer to home than the search itself.
+ * Removal shifts the rest of the run backward, so no tombstones are left behind.
+ *
+ * @param <K> Object type of the search key
+ * @param <V> Object type of the value associated with the key.
+ */
+public class RobinHoodHashedDictionary<K, V> implements DictionaryInterface<K, V> {
+
+	// the dictionary
+	private int numberOfEntries;
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	// the hash table
+	private Object[] keys;
+	private Object[] values;									// values[i] belongs to keys[i]
+	private int[] probeLengths;									// 0 marks an empty slot, otherwise 1 + distance from home slot
+	private int tableSize;										// must be a power of 2
+	private int mask;											// tableSize - 1
+	private boolean integrityOK = false;
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+
+	public RobinHoodHashedDictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public RobinHoodHashedDictionary(int initialCapacity) {
+		initialCapacity = checkCapacity(initialCapacity);
+		numberOfEntries = 0;
+
+		// smallest power of 2 that holds initialCapacity entries without exceeding the load factor
+		tableSize = getTableSizeFor((int) Math.ceil(initialCapacity / MAX_LOAD_FACTOR));
+		allocateTable(tableSize);
+		integrityOK = true;
+	}
+
+	@Override
+	public V add(K key, V value) {
+		checkIntegrity();
+		if(key == null || value == null)
+			throw new IllegalArgumentException();
+		int index = getHashIndex(key);
+		int probeLength = 1;
+		// look for the key along the part of the run where it could be stored
+		while(probeLengths[index] >= probeLength) {
+			if(probeLengths[index] == probeLength && keys[index].equals(key)) {
+				// update the existing entry
+				@SuppressWarnings("unchecked")
+				V replacedValue = (V) values[index];
+				values[index] = value;
+				return replacedValue;
+			}
+			index = (index + 1) & mask;
+			probeLength++;
+		}
+		if(tableSize == MAX_CAPACITY && numberOfEntries == tableSize - 1)
+			throw new IllegalStateException("dictionary is full");	// at least one slot must stay empty to end a run
+		insertAt(index, probeLength, key, value);
+		numberOfEntries++;
+		// ensure hash table is large enough for another addition
+		if(isHashTableTooFull())
+			enlargeHashTable();
+		return null;
+	}
+
+	@Override
+	public V remove(K key) {
+		checkIntegrity();
+		int index = locate(key);
+		if(index < 0)
+			return null;
+		@SuppressWarnings("unchecked")
+		V removedValue = (V) values[index];
+		// shift the rest of the run back by one slot until an empty slot or an entry in its home slot
+		int next = (index + 1) & mask;
+		while(probeLengths[next] > 1) {
+			keys[index] = keys[next];
+			values[index] = values[next];
+			probeLengths[index] = probeLengths[next] - 1;
+			index = next;
+			next = (next + 1) & mask;
+		}
+		keys[index] = null;
+		values[index] = null;
+		probeLengths[index] = 0;
+		numberOfEntries--;
+		return removedValue;
+	}
+
+	@Override
+	public V getValue(K key) {
+		checkIntegrity();
+		int index = locate(key);
+		if(index < 0)
+			return null;
+		@SuppressWarnings("unchecked")
+		V result = (V) values[index];
+		return result;
+	}
+
+	@Override
+	public boolean contains(K key) {
+		checkIntegrity();
+		return locate(key) >= 0;
+	}
+
+	@Override
+	public Iterator<K> getKeyIterator() {
+		checkIntegrity();
+		return new SlotIterator<>(keys);
+	}
+
+	@Override
+	public Iterator<V> getValueIterator() {
+		checkIntegrity();
+		return new SlotIterator<>(values);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (numberOfEntries == 0);
+	}
+
+	@Override
+	public int getSize() {
+		return numberOfEntries;
+	}
+
+	@Override
+	public void clear() {
+		checkIntegrity();
+		allocateTable(tableSize);
+		numberOfEntries = 0;
+	}
+
+	// returns the slot holding key, or -1 if key is not in the table
+	private int locate(K key) {
+		if(key == null)
+			return -1;
+		int index = getHashIndex(key);
+		int probeLength = 1;
+		// an entry closer to its home than we are to ours means key would have displaced it
+		while(probeLengths[index] >= probeLength) {
+			if(probeLengths[index] == probeLength && keys[index].equals(key))
+				return index;
+			index = (index + 1) & mask;
+			probeLength++;
+		}
+		return -1;
+	}
+
+	// places a new entry at index, pushing richer entries further along the run
+	private void insertAt(int index, int probeLength, Object key, Object value) {
+		while(probeLengths[index] != 0) {
+			if(probeLengths[index] < probeLength) {
+				// the resident is closer to home; it gives up its slot
+				Object displacedKey = keys[index];
+				Object displacedValue = values[index];
+				int displacedProbeLength = probeLengths[index];
+				keys[index] = key;
+				values[index] = value;
+				probeLengths[index] = probeLength;
+				key = displacedKey;
+				value = displacedValue;
+				probeLength = displacedProbeLength;
+			}
+			index = (index + 1) & mask;
+			probeLength++;
+		}
+		keys[index] = key;
+		values[index] = value;
+		probeLengths[index] = probeLength;
+	}
+
+	private void enlargeHashTable() {
+		if(tableSize == MAX_CAPACITY)
+			return;		// already at the largest table; keep probing at a higher load
+		Object[] oldKeys = keys;
+		Object[] oldValues = values;
+		tableSize = tableSize * 2;
+		allocateTable(tableSize);
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != null) {
+				@SuppressWarnings("unchecked")
+				int index = getHashIndex((K) oldKeys[i]);
+				insertAt(index, 1, oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private void allocateTable(int size) {
+		keys = new Object[size];
+		values = new Object[size];
+		probeLengths = new int[size];
+		mask = size - 1;
+	}
+
+	private boolean isHashTableTooFull() {
+		double loadFactor = (double)numberOfEntries / (double)tableSize;
+		if(loadFactor > MAX_LOAD_FACTOR)
+			return true;
+		return false;
+	}
+
+	private void checkIntegrity() {
+		if(!integrityOK)
+			throw new IllegalStateException();
+	}
+
+	private int getHashIndex(K key) {
+		// spread the bits so that hash codes differing only in their upper bits still land apart
+		int hash = key.hashCode() * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private int getTableSizeFor(int num) {
+		if(num <= 2)
+			return 2;
+		if(num >= MAX_CAPACITY)
+			return MAX_CAPACITY;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+	// walks the occupied slots of one of the parallel arrays
+	private class SlotIterator<T> implements Iterator<T> {
+		private final Object[] slots;
+		private final int[] occupied = probeLengths;
+		private int nextIndex;
+
+		SlotIterator(Object[] slots) {
+			this.slots = slots;
+			nextIndex = advance(0);
+		}
+
+		private int advance(int from) {
+			while(from < occupied.length && occupied[from] == 0)
+				from++;
+			return from;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextIndex < occupied.length;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			@SuppressWarnings("unchecked")
+			T result = (T) slots[nextIndex];
+			nextIndex = advance(nextIndex + 1);
+			return result;
+		}
+	}
+
+}
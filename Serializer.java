@@ -0,0 +1,84 @@
+package hashedDictionary;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts keys or values to and from bytes, for dictionaries that store their entries outside the
+ * Java heap. A serializer either writes every object in the same number of bytes, in which case the
+ * length is not stored with each entry, or reports the length of each object separately.
+ *
+ * Two keys are treated as equal when their serialized forms are equal, so a key serializer must
+ * write equal keys identically.
+ *
+ * @param <T> Object type this serializer converts.
+ */
+public interface Serializer<T> {
+
+	/** The value of getFixedLength() for serializers whose objects vary in length. */
+	public static final int VARIABLE_LENGTH = -1;
+
+	/**
+	 * Gets the number of bytes every object is written in.
+	 * @return The fixed length in bytes, or VARIABLE_LENGTH if objects differ in length.
+	 */
+	public int getFixedLength();
+
+	/**
+	 * Gets the number of bytes an object will be written in.
+	 * @param object A non-null object.
+	 * @return The number of bytes write() puts for object.
+	 */
+	public int getLength(T object);
+
+	/**
+	 * Writes an object at the buffer's position, advancing the position by getLength(object) bytes.
+	 * @param object A non-null object.
+	 * @param buffer The buffer to write to.
+	 */
+	public void write(T object, ByteBuffer buffer);
+
+	/**
+	 * Reads an object at the buffer's position.
+	 * @param buffer The buffer to read from.
+	 * @param length The number of bytes the object was written in.
+	 * @return The object.
+	 */
+	public T read(ByteBuffer buffer, int length);
+
+	/**
+	 * Gets a serializer that writes an Integer in 4 bytes.
+	 * @return The Integer serializer.
+	 */
+	@SuppressWarnings("unchecked")
+	public static Serializer<Integer> ofInteger() {
+		return (Serializer<Integer>) (Serializer<?>) StandardSerializer.INTEGER;
+	}
+
+	/**
+	 * Gets a serializer that writes a Long in 8 bytes.
+	 * @return The Long serializer.
+	 */
+	@SuppressWarnings("unchecked")
+	public static Serializer<Long> ofLong() {
+		return (Serializer<Long>) (Serializer<?>) StandardSerializer.LONG;
+	}
+
+	/**
+	 * Gets a serializer that writes a String as UTF-8.
+	 * @return The String serializer.
+	 */
+	@SuppressWarnings("unchecked")
+	public static Serializer<String> ofString() {
+		return (Serializer<String>) (Serializer<?>) StandardSerializer.STRING;
+	}
+
+	/**
+	 * Gets a serializer that writes a byte array as its contents.
+	 * @return The byte array serializer.
+	 */
+	@SuppressWarnings("unchecked")
+	public static Serializer<byte[]> ofByteArray() {
+		return (Serializer<byte[]>) (Serializer<?>) StandardSerializer.BYTE_ARRAY;
+	}
+
+}
@@ -0,0 +1,90 @@
+package hashedDictionary;
+
+/**
+ * SipHash-2-4, a keyed hash function: without the 128-bit key, an attacker cannot choose inputs
+ * that collide. Used by the dictionaries' keyed hashing mode for String and byte[] keys.
+ * A String is hashed as the little-endian bytes of its UTF-16 code units.
+ */
+final class SipHash {
+
+	private SipHash() {
+	}
+
+	static long hash(long k0, long k1, byte[] data) {
+		int length = data.length;
+		int end = length & ~7;
+		long last = (long) length << 56;
+		for(int i = end; i < length; i++)
+			last |= (data[i] & 0xFFL) << ((i - end) << 3);
+		return hash(k0, k1, data, end >>> 3, last);
+	}
+
+	static long hash(long k0, long k1, String data) {
+		int length = data.length();
+		int end = length & ~3;
+		long last = (long) (length << 1) << 56;
+		for(int i = end; i < length; i++)
+			last |= (long) data.charAt(i) << ((i - end) << 4);
+		return hash(k0, k1, data, end >>> 2, last);
+	}
+
+	// compresses fullWords 8-byte words of data and then lastWord, and finalizes
+	private static long hash(long k0, long k1, Object data, int fullWords, long lastWord) {
+		long v0 = k0 ^ 0x736f6d6570736575L;
+		long v1 = k1 ^ 0x646f72616e646f6dL;
+		long v2 = k0 ^ 0x6c7967656e657261L;
+		long v3 = k1 ^ 0x7465646279746573L;
+		for(int i = 0; i <= fullWords + 1; i++) {
+			long word;
+			int rounds = 2;
+			if(i < fullWords)
+				word = getWord(data, i);
+			else if(i == fullWords)
+				word = lastWord;
+			else {
+				// finalization: four rounds with no message word
+				word = 0;
+				v2 ^= 0xFF;
+				rounds = 4;
+			}
+			v3 ^= word;
+			for(int r = 0; r < rounds; r++) {
+				v0 += v1;
+				v1 = Long.rotateLeft(v1, 13);
+				v1 ^= v0;
+				v0 = Long.rotateLeft(v0, 32);
+				v2 += v3;
+				v3 = Long.rotateLeft(v3, 16);
+				v3 ^= v2;
+				v0 += v3;
+				v3 = Long.rotateLeft(v3, 21);
+				v3 ^= v0;
+				v2 += v1;
+				v1 = Long.rotateLeft(v1, 17);
+				v1 ^= v2;
+				v2 = Long.rotateLeft(v2, 32);
+			}
+			v0 ^= word;
+		}
+		return v0 ^ v1 ^ v2 ^ v3;
+	}
+
+	// the index-th little-endian 8-byte word of a byte[] or of a String's UTF-16 code units
+	private static long getWord(Object data, int index) {
+		if(data instanceof String) {
+			String chars = (String) data;
+			int i = index << 2;
+			return chars.charAt(i)
+					| (long) chars.charAt(i + 1) << 16
+					| (long) chars.charAt(i + 2) << 32
+					| (long) chars.charAt(i + 3) << 48;
+		}
+		byte[] bytes = (byte[]) data;
+		int i = index << 3;
+		long word = 0;
+		for(int b = 7; b >= 0; b--)
+			word = (word << 8) | (bytes[i + b] & 0xFFL);
+		return word;
+	}
+
+}
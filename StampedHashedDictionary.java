@@ -0,0 +1,275 @@
+package hashedDictionary;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe hashed dictionary that resolves collisions with separate chaining, guarded by one
+ * StampedLock for workloads that read far more often than they write.
+ * getValue, contains, getSize and isEmpty first read without locking, under an optimistic stamp
+ * that is validated after the chain walk; only if a writer ran in the meantime do they read again
+ * under the read lock. add, remove, clear and resizing take the write lock.
+ *
+ * An optimistic reader may see a chain that a writer is relinking, so it gives up and takes the
+ * read lock after a bounded number of nodes rather than trusting the chain to end.
+ *
+ * The iterators walk a copy of the keys or values taken under the read lock when the iterator
+ * is created.
+ *
+ * @param <K> Object type of the search key
+ * @param <V> Object type of the value associated with the key.
+ */
+public class StampedHashedDictionary<K, V> implements DictionaryInterface<K, V> {
+
+	// the dictionary
+	private int numberOfEntries;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	// the hash table
+	private Node<K, V>[] hashTable;								// power of 2 number of buckets
+	private static final double MAX_LOAD_FACTOR = 0.75;			// fraction of hash table that can be filled
+	private static final int MAX_OPTIMISTIC_STEPS = 64;			// nodes an optimistic read walks before it takes the read lock
+
+	// the lock
+	private final StampedLock lock = new StampedLock();
+
+	public StampedHashedDictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public StampedHashedDictionary(int initialCapacity) {
+		initialCapacity = checkCapacity(initialCapacity);
+		hashTable = newHashTable(getPowerOfTwoFor((int) Math.ceil(initialCapacity / MAX_LOAD_FACTOR)));
+	}
+
+	@Override
+	public V add(K key, V value) {
+		if(key == null || value == null)
+			throw new IllegalArgumentException();
+		int hash = HashChains.hash(key);
+		long stamp = lock.writeLock();
+		try {
+			int index = hash & (hashTable.length - 1);
+			for(Node<K, V> node = hashTable[index]; node != null; node = node.next) {
+				if(node.hash == hash && node.key.equals(key)) {
+					V oldValue = node.value;
+					node.value = value;
+					return oldValue;
+				}
+			}
+			hashTable[index] = new Node<>(key, value, hash, hashTable[index]);
+			numberOfEntries++;
+			// ensure hash table is large enough for another addition
+			if(isHashTableTooFull())
+				enlargeHashTable();
+			return null;
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public V remove(K key) {
+		if(key == null)
+			return null;
+		int hash = HashChains.hash(key);
+		long stamp = lock.writeLock();
+		try {
+			int index = hash & (hashTable.length - 1);
+			Node<K, V> previous = null;
+			for(Node<K, V> node = hashTable[index]; node != null; previous = node, node = node.next) {
+				if(node.hash == hash && node.key.equals(key)) {
+					if(previous == null)
+						hashTable[index] = node.next;
+					else
+						previous.next = node.next;
+					numberOfEntries--;
+					return node.value;
+				}
+			}
+			return null;
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public V getValue(K key) {
+		if(key == null)
+			return null;
+		int hash = HashChains.hash(key);
+		long stamp = lock.tryOptimisticRead();
+		if(stamp != 0) {
+			Node<K, V>[] table = hashTable;
+			Node<K, V> node = table[hash & (table.length - 1)];
+			V result = null;
+			int steps = 0;
+			for(; node != null && steps < MAX_OPTIMISTIC_STEPS; node = node.next, steps++) {
+				if(node.hash == hash && node.key.equals(key)) {
+					result = node.value;
+					break;
+				}
+			}
+			if((node == null || result != null) && lock.validate(stamp))
+				return result;
+		}
+		stamp = lock.readLock();
+		try {
+			for(Node<K, V> node = hashTable[hash & (hashTable.length - 1)]; node != null; node = node.next) {
+				if(node.hash == hash && node.key.equals(key))
+					return node.value;
+			}
+			return null;
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public boolean contains(K key) {
+		return getValue(key) != null;
+	}
+
+	@Override
+	public Iterator<K> getKeyIterator() {
+		return new SnapshotIterator<>(true);
+	}
+
+	@Override
+	public Iterator<V> getValueIterator() {
+		return new SnapshotIterator<>(false);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return getSize() == 0;
+	}
+
+	@Override
+	public int getSize() {
+		long stamp = lock.tryOptimisticRead();
+		int size = numberOfEntries;
+		if(stamp != 0 && lock.validate(stamp))
+			return size;
+		stamp = lock.readLock();
+		try {
+			return numberOfEntries;
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			hashTable = newHashTable(hashTable.length);
+			numberOfEntries = 0;
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	// doubles the table, relinking the nodes; called with the write lock held
+	private void enlargeHashTable() {
+		if(hashTable.length == MAX_CAPACITY)
+			return;		// at the largest table the chains get longer instead
+		Node<K, V>[] oldTable = hashTable;
+		Node<K, V>[] newTable = newHashTable(oldTable.length * 2);
+		for(Node<K, V> bucket : oldTable) {
+			Node<K, V> node = bucket;
+			while(node != null) {
+				Node<K, V> next = node.next;
+				int index = node.hash & (newTable.length - 1);
+				node.next = newTable[index];
+				newTable[index] = node;
+				node = next;
+			}
+		}
+		hashTable = newTable;
+	}
+
+	private boolean isHashTableTooFull() {
+		double loadFactor = (double)numberOfEntries / (double)hashTable.length;
+		if(loadFactor > MAX_LOAD_FACTOR)
+			return true;
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Node<K, V>[] newHashTable(int size) {
+		return (Node<K, V>[]) new Node[size];
+	}
+
+	private static int getPowerOfTwoFor(int num) {
+		if(num <= 2)
+			return 2;
+		if(num >= MAX_CAPACITY)
+			return MAX_CAPACITY;
+		return Integer.highestOneBit(num - 1) << 1;
+	}
+
+	private int checkCapacity(int initialCapacity) {
+		if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+			throw new IllegalArgumentException();
+		return initialCapacity;
+	}
+
+	// key and hash are final, so an optimistic reader never sees them unset
+	private static class Node<K, V> {
+		private final K key;
+		private V value;
+		private final int hash;
+		private Node<K, V> next;
+
+		Node(K key, V value, int hash, Node<K, V> next) {
+			this.key = key;
+			this.value = value;
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+
+	// walks the keys or values copied under the read lock
+	private class SnapshotIterator<T> implements Iterator<T> {
+		private final Object[] snapshot;
+		private int nextIndex;
+
+		SnapshotIterator(boolean keys) {
+			long stamp = lock.readLock();
+			try {
+				snapshot = new Object[numberOfEntries];
+				int count = 0;
+				for(Node<K, V> bucket : hashTable) {
+					for(Node<K, V> node = bucket; node != null; node = node.next)
+						snapshot[count++] = keys ? node.key : node.value;
+				}
+			}
+			finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextIndex < snapshot.length;
+		}
+
+		@Override
+		public T next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			@SuppressWarnings("unchecked")
+			T result = (T) snapshot[nextIndex++];
+			return result;
+		}
+	}
+
+}
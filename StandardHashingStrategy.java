@@ -0,0 +1,103 @@
+package hashedDictionary;
+
+import java.util.Arrays;
+
+/**
+ * The hashing strategies returned by the static methods of HashingStrategy.
+ */
+enum StandardHashingStrategy implements HashingStrategy<Object> {
+
+	NATURAL {
+		@Override
+		public int hashCode(Object key) {
+			return key.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object a, Object b) {
+			return a.equals(b);
+		}
+	},
+
+	IDENTITY {
+		@Override
+		public int hashCode(Object key) {
+			return System.identityHashCode(key);
+		}
+
+		@Override
+		public boolean equals(Object a, Object b) {
+			return a == b;
+		}
+	},
+
+	BYTE_ARRAY_CONTENT {
+		@Override
+		public int hashCode(Object key) {
+			return Arrays.hashCode((byte[]) key);
+		}
+
+		@Override
+		public boolean equals(Object a, Object b) {
+			return Arrays.equals((byte[]) a, (byte[]) b);
+		}
+	},
+
+	INT_ARRAY_CONTENT {
+		@Override
+		public int hashCode(Object key) {
+			return Arrays.hashCode((int[]) key);
+		}
+
+		@Override
+		public boolean equals(Object a, Object b) {
+			return Arrays.equals((int[]) a, (int[]) b);
+		}
+	},
+
+	LONG_ARRAY_CONTENT {
+		@Override
+		public int hashCode(Object key) {
+			return Arrays.hashCode((long[]) key);
+		}
+
+		@Override
+		public boolean equals(Object a, Object b) {
+			return Arrays.equals((long[]) a, (long[]) b);
+		}
+	},
+
+	OBJECT_ARRAY_CONTENT {
+		@Override
+		public int hashCode(Object key) {
+			return Arrays.hashCode((Object[]) key);
+		}
+
+		@Override
+		public boolean equals(Object a, Object b) {
+			return Arrays.equals((Object[]) a, (Object[]) b);
+		}
+	},
+
+	CASE_INSENSITIVE {
+		@Override
+		public int hashCode(Object key) {
+			// fold each code point the way String.equalsIgnoreCase() does, so equal strings hash alike;
+			// it compares a surrogate pair as one supplementary character
+			String string = (String) key;
+			int hash = 0;
+			for(int i = 0; i < string.length(); ) {
+				int codePoint = string.codePointAt(i);
+				hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(codePoint));
+				i += Character.charCount(codePoint);
+			}
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object a, Object b) {
+			return ((String) a).equalsIgnoreCase((String) b);
+		}
+	}
+
+}
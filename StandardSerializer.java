@@ -0,0 +1,106 @@
+package hashedDictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The serializers returned by the static methods of Serializer.
+ */
+enum StandardSerializer implements Serializer<Object> {
+
+	INTEGER(Integer.BYTES) {
+		@Override
+		public void write(Object object, ByteBuffer buffer) {
+			buffer.putInt((Integer) object);
+		}
+
+		@Override
+		public Object read(ByteBuffer buffer, int length) {
+			return buffer.getInt();
+		}
+	},
+
+	LONG(Long.BYTES) {
+		@Override
+		public void write(Object object, ByteBuffer buffer) {
+			buffer.putLong((Long) object);
+		}
+
+		@Override
+		public Object read(ByteBuffer buffer, int length) {
+			return buffer.getLong();
+		}
+	},
+
+	STRING(VARIABLE_LENGTH) {
+		@Override
+		public int getLength(Object object) {
+			// count UTF-8 bytes without encoding the string twice
+			String string = (String) object;
+			int length = string.length();
+			for(int i = 0; i < string.length(); i++) {
+				char c = string.charAt(i);
+				if(Character.isSurrogate(c)) {
+					// a surrogate pair is 2 chars and 4 bytes; an unpaired surrogate is written as '?'
+					if(Character.isHighSurrogate(c) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1))) {
+						length += 2;
+						i++;
+					}
+				}
+				else if(c >= 0x800)
+					length += 2;
+				else if(c >= 0x80)
+					length += 1;
+			}
+			return length;
+		}
+
+		@Override
+		public void write(Object object, ByteBuffer buffer) {
+			buffer.put(((String) object).getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public Object read(ByteBuffer buffer, int length) {
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	},
+
+	BYTE_ARRAY(VARIABLE_LENGTH) {
+		@Override
+		public int getLength(Object object) {
+			return ((byte[]) object).length;
+		}
+
+		@Override
+		public void write(Object object, ByteBuffer buffer) {
+			buffer.put((byte[]) object);
+		}
+
+		@Override
+		public Object read(ByteBuffer buffer, int length) {
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			return bytes;
+		}
+	};
+
+	private final int fixedLength;
+
+	private StandardSerializer(int fixedLength) {
+		this.fixedLength = fixedLength;
+	}
+
+	@Override
+	public int getFixedLength() {
+		return fixedLength;
+	}
+
+	@Override
+	public int getLength(Object object) {
+		return fixedLength;
+	}
+
+}